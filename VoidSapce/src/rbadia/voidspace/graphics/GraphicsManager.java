@@ -1,9 +1,16 @@
 package rbadia.voidspace.graphics;
 
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImageObserver;
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 import javax.imageio.ImageIO;
@@ -11,6 +18,7 @@ import javax.swing.JOptionPane;
 
 import rbadia.voidspace.model.Asteroid;
 import rbadia.voidspace.model.Bullet;
+import rbadia.voidspace.model.CollisionMask;
 import rbadia.voidspace.model.EnemyShip;
 import rbadia.voidspace.model.Ship;
 
@@ -18,33 +26,134 @@ import rbadia.voidspace.model.Ship;
  * Manages and draws game graphics and images.
  */
 public class GraphicsManager {
-	private BufferedImage shipImg;
-	private BufferedImage bulletImg;
-	private BufferedImage asteroidImg;
-	private BufferedImage asteroidExplosionImg;
-	private BufferedImage shipExplosionImg;
-	private BufferedImage enemyShipImg;
+	// sprite names in the atlas
+	public static final String SHIP = "ship";
+	public static final String BULLET = "bullet";
+	public static final String ASTEROID = "asteroid";
+	public static final String ENEMY_SHIP = "enemyShip";
+
+	private static final String[] SPRITES = {SHIP, BULLET, ASTEROID, ENEMY_SHIP};
+
+	// collision masks of the sprites, by name; shared by all simulations, with or without a screen
+	private static Map<String, CollisionMask> collisionMasks;
+
+	private SpriteAtlas atlas;
+	private Rectangle shipRegion;
+	private Rectangle bulletRegion;
+	private Rectangle asteroidRegion;
+	private Rectangle enemyShipRegion;
+
+	// video memory copy of the atlas, only used by the accelerated renderer
+	private VolatileSprite atlasSprite;
 
 	private Random rand = new Random();
 	
 	/**
 	 * Creates a new graphics manager and loads the game images.
+	 * The images are packed into a single atlas in the screen's pixel format.
 	 */
 	public GraphicsManager(){
     	// load images
 		try {
-			this.shipImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/ship.png"));
-			this.asteroidImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/asteroid.png"));
-			this.asteroidExplosionImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/asteroidExplosion.png"));
-			this.shipExplosionImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/shipExplosion.png"));
-			this.bulletImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/bullet.png"));
-			this.enemyShipImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/enemyShip.png"));
+			BufferedImage[] images = new BufferedImage[SPRITES.length];
+			for(int i=0; i<SPRITES.length; i++){
+				images[i] = readImage(SPRITES[i]);
+			}
+			initCollisionMasks(images);
+			GraphicsConfiguration gc = GraphicsEnvironment.isHeadless()? null :
+				GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+			this.atlas = new SpriteAtlas(SPRITES, images, gc);
 		} catch (Exception e) {
 			JOptionPane.showMessageDialog(null, "The graphic files are either corrupt or missing.",
 					"VoidSpace - Fatal Error", JOptionPane.ERROR_MESSAGE);
 			e.printStackTrace();
 			System.exit(-1);
 		}
+		this.shipRegion = atlas.getRegion(SHIP);
+		this.bulletRegion = atlas.getRegion(BULLET);
+		this.asteroidRegion = atlas.getRegion(ASTEROID);
+		this.enemyShipRegion = atlas.getRegion(ENEMY_SHIP);
+	}
+
+	private static BufferedImage readImage(String name) throws IOException {
+		URL url = GraphicsManager.class.getResource("/rbadia/voidspace/graphics/" + name + ".png");
+		if(url == null){
+			throw new IOException("Missing image: " + name);
+		}
+		return ImageIO.read(url);
+	}
+
+	/**
+	 * Builds the collision masks of the sprites from their images, unless they have been built already.
+	 * @param images the sprite images, in the order of {@link #SPRITES}
+	 */
+	private static synchronized void initCollisionMasks(BufferedImage[] images){
+		if(collisionMasks != null){
+			return;
+		}
+		Map<String, CollisionMask> masks = new HashMap<String, CollisionMask>();
+		for(int i=0; i<SPRITES.length; i++){
+			masks.put(SPRITES[i], CollisionMask.fromImage(images[i], CollisionMask.DEFAULT_ALPHA_THRESHOLD));
+		}
+		collisionMasks = masks;
+	}
+
+	/**
+	 * Returns the collision mask of a sprite: its pixels that are not transparent.
+	 * The masks are built when the images are first loaded, by a graphics manager or by this method,
+	 * which does not need a screen, so simulations without one collide the same way.
+	 * @param name the sprite name, e.g. {@link #ASTEROID}
+	 * @return the collision mask
+	 */
+	public static synchronized CollisionMask getCollisionMask(String name){
+		if(collisionMasks == null){
+			try{
+				BufferedImage[] images = new BufferedImage[SPRITES.length];
+				for(int i=0; i<SPRITES.length; i++){
+					images[i] = readImage(SPRITES[i]);
+				}
+				initCollisionMasks(images);
+			}
+			catch(IOException e){
+				throw new IllegalStateException("The graphic files are either corrupt or missing", e);
+			}
+		}
+		CollisionMask mask = collisionMasks.get(name);
+		if(mask == null){
+			throw new IllegalArgumentException("No such sprite: " + name);
+		}
+		return mask;
+	}
+
+	/**
+	 * Keeps a copy of the sprite atlas in video memory and draws from it from now on.
+	 * Should be used when drawing onto an accelerated surface, e.g. a buffer strategy.
+	 * @param gc the graphics configuration of the surface the images are drawn onto
+	 */
+	public void useVolatileImages(GraphicsConfiguration gc){
+		atlasSprite = new VolatileSprite(atlas.getImage(), gc);
+	}
+
+	/**
+	 * Returns the sprite atlas.
+	 * @return the atlas holding all game images
+	 */
+	public SpriteAtlas getAtlas() {
+		return atlas;
+	}
+
+	/**
+	 * Draws one sprite from the atlas, using its video memory copy if there is one.
+	 * @param region the sprite region in the atlas
+	 * @param x the x coordinate to draw the sprite at
+	 * @param y the y coordinate to draw the sprite at
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	private void drawSprite(Rectangle region, int x, int y, Graphics2D g2d, ImageObserver observer){
+		Image image = atlasSprite == null? atlas.getImage() : atlasSprite.getImage();
+		g2d.drawImage(image, x, y, x + region.width, y + region.height,
+				region.x, region.y, region.x + region.width, region.y + region.height, observer);
 	}
 
 	/**
@@ -54,7 +163,7 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawShip(Ship ship, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(shipImg, ship.x, ship.y, observer);
+		drawSprite(shipRegion, ship.x, ship.y, g2d, observer);
 	}
 
 	/**
@@ -64,37 +173,41 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawBullet(Bullet bullet, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(bulletImg, bullet.x, bullet.y, observer);
+		drawSprite(bulletRegion, bullet.x, bullet.y, g2d, observer);
 	}
 
 	/**
-	 * Draws an asteroid image to the specified graphics canvas.
-	 * @param asteroid the asteroid to draw
+	 * Draws a bullet image at the given location, e.g. ahead of the bullet's last updated position.
+	 * @param bullet the bullet to draw
+	 * @param x the x coordinate to draw the bullet at
+	 * @param y the y coordinate to draw the bullet at
 	 * @param g2d the graphics canvas
 	 * @param observer object to be notified
 	 */
-	public void drawAsteroid(Asteroid asteroid, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(asteroidImg, asteroid.x, asteroid.y, observer);
+	public void drawBullet(Bullet bullet, int x, int y, Graphics2D g2d, ImageObserver observer) {
+		drawSprite(bulletRegion, x, y, g2d, observer);
 	}
 
 	/**
-	 * Draws a ship explosion image to the specified graphics canvas.
-	 * @param shipExplosion the bounding rectangle of the explosion
+	 * Draws an asteroid image to the specified graphics canvas.
+	 * @param asteroid the asteroid to draw
 	 * @param g2d the graphics canvas
 	 * @param observer object to be notified
 	 */
-	public void drawShipExplosion(Rectangle shipExplosion, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(shipExplosionImg, shipExplosion.x, shipExplosion.y, observer);
+	public void drawAsteroid(Asteroid asteroid, Graphics2D g2d, ImageObserver observer) {
+		drawSprite(asteroidRegion, asteroid.x, asteroid.y, g2d, observer);
 	}
 
 	/**
-	 * Draws an asteroid explosion image to the specified graphics canvas.
-	 * @param asteroidExplosion the bounding rectangle of the explosion
+	 * Draws an asteroid image at the given location, e.g. ahead of the asteroid's last updated position.
+	 * @param asteroid the asteroid to draw
+	 * @param x the x coordinate to draw the asteroid at
+	 * @param y the y coordinate to draw the asteroid at
 	 * @param g2d the graphics canvas
 	 * @param observer object to be notified
 	 */
-	public void drawAsteroidExplosion(Rectangle asteroidExplosion, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(asteroidExplosionImg, asteroidExplosion.x, asteroidExplosion.y, observer);
+	public void drawAsteroid(Asteroid asteroid, int x, int y, Graphics2D g2d, ImageObserver observer) {
+		drawSprite(asteroidRegion, x, y, g2d, observer);
 	}
 
 	/**
@@ -107,17 +220,18 @@ public class GraphicsManager {
 
 				//enemyShip.x = rand.nextInt(50);
 
-		g2d.drawImage(enemyShipImg, enemyShip.x, enemyShip.y, observer);
+		drawSprite(enemyShipRegion, enemyShip.x, enemyShip.y, g2d, observer);
 	}
 
 	/**
-	 * Draws a  enemy ship explosion image to the specified graphics canvas.
-	 * @param shipExplosion the bounding rectangle of the explosion
+	 * Draws an enemy ship image at the given location, e.g. ahead of the ship's last updated position.
+	 * @param enemyShip the ship to draw
+	 * @param x the x coordinate to draw the ship at
+	 * @param y the y coordinate to draw the ship at
 	 * @param g2d the graphics canvas
 	 * @param observer object to be notified
 	 */
-	public void drawEnemyShipExplosion(Rectangle shipExplosion, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(shipExplosionImg, shipExplosion.x, shipExplosion.y, observer);
+	public void drawEnemyShip(EnemyShip enemyShip, int x, int y, Graphics2D g2d, ImageObserver observer) {
+		drawSprite(enemyShipRegion, x, y, g2d, observer);
 	}
-	
 }
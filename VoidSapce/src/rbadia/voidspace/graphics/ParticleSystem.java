@@ -0,0 +1,320 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+/**
+ * Explosion particles. Every particle is a small square flying away from where something exploded,
+ * slowing down and fading out until its lifetime is over.
+ * <p>
+ * Particles are kept in a fixed number of slots as parallel arrays of primitive values (position,
+ * velocity, age, lifetime and color), like {@link rbadia.voidspace.model.EntityStore}; a particle that
+ * dies takes the last live particle into its slot. Emitting and updating particles allocates nothing,
+ * and when all slots are in use new particles are dropped. Particles are drawn in batches of the same
+ * color, so the graphics context only changes color a few times per frame however many there are.
+ * <p>
+ * Particles are only for show: they have their own random source, so they don't change the game.
+ */
+public class ParticleSystem {
+	/**
+	 * Default number of particle slots, enough for a few hundred explosions at once.
+	 */
+	public static final int DEFAULT_CAPACITY = 16384;
+
+	// base colors of the particles; each has FADE_LEVELS shades, from the full color to almost black.
+	// Fading towards the black of space instead of towards transparent keeps the shades opaque, which
+	// are much faster to fill than translucent ones
+	private static final int[] PALETTE = {
+		0xFFFFFF, // white
+		0xFFE060, // yellow
+		0xFF9020, // orange
+		0xD03010, // red
+		0x9A8A7A, // asteroid gray
+		0x60A0FF, // blue
+	};
+	private static final int FADE_LEVELS = 4;
+	private static final Color[] SHADES = new Color[PALETTE.length * FADE_LEVELS];
+	static {
+		for(int i=0; i<PALETTE.length; i++){
+			for(int level=0; level<FADE_LEVELS; level++){
+				Color color = new Color(PALETTE[i]);
+				int share = FADE_LEVELS - level;
+				SHADES[i * FADE_LEVELS + level] = new Color(color.getRed() * share / FADE_LEVELS,
+						color.getGreen() * share / FADE_LEVELS, color.getBlue() * share / FADE_LEVELS);
+			}
+		}
+	}
+
+	// unit vectors of evenly spaced directions, so emitting needs no trigonometry
+	private static final int DIRECTIONS = 256;
+	private static final float[] DIRECTION_X = new float[DIRECTIONS];
+	private static final float[] DIRECTION_Y = new float[DIRECTIONS];
+	static {
+		for(int i=0; i<DIRECTIONS; i++){
+			double angle = 2 * Math.PI * i / DIRECTIONS;
+			DIRECTION_X[i] = (float) Math.cos(angle);
+			DIRECTION_Y[i] = (float) Math.sin(angle);
+		}
+	}
+
+	// share of their speed particles keep after a second
+	private static final double DRAG = 0.3;
+	// longest time a frame can advance the particles by, so they don't jump after a pause
+	private static final long MAX_FRAME_NANOS = 100000000L;
+
+	/**
+	 * Explosion of an asteroid: gray rocks and a few sparks.
+	 */
+	public static final Emitter ASTEROID = new Emitter(24, 20f, 90f, 0.4f, 1.0f, 2, 4, 4, 2, 1);
+
+	/**
+	 * Explosion of the player's ship: a large, long fireball.
+	 */
+	public static final Emitter SHIP = new Emitter(64, 30f, 150f, 0.6f, 1.6f, 2, 0, 1, 2, 3, 5);
+
+	/**
+	 * Explosion of an enemy ship: a short, hot fireball.
+	 */
+	public static final Emitter ENEMY_SHIP = new Emitter(40, 40f, 130f, 0.4f, 1.1f, 2, 0, 1, 1, 2, 3);
+
+	/**
+	 * How an explosion throws out its particles. Emitters are immutable and can be shared.
+	 */
+	public static class Emitter {
+		private final int count;
+		private final float minSpeed;
+		private final float maxSpeed;
+		private final float minLifetime;
+		private final float maxLifetime;
+		private final int size;
+		private final byte[] colors;
+
+		/**
+		 * Creates a new emitter.
+		 * @param count the number of particles of one explosion
+		 * @param minSpeed the least starting speed of a particle, in pixels per second
+		 * @param maxSpeed the greatest starting speed of a particle, in pixels per second
+		 * @param minLifetime the shortest lifetime of a particle, in seconds
+		 * @param maxLifetime the longest lifetime of a particle, in seconds
+		 * @param size the width and height of a particle, in pixels
+		 * @param colors the palette colors particles pick from at random; repeat a color to make it more common
+		 */
+		public Emitter(int count, float minSpeed, float maxSpeed, float minLifetime, float maxLifetime,
+				int size, int... colors){
+			this.count = count;
+			this.minSpeed = minSpeed;
+			this.maxSpeed = maxSpeed;
+			this.minLifetime = minLifetime;
+			this.maxLifetime = maxLifetime;
+			this.size = size;
+			this.colors = new byte[colors.length];
+			for(int i=0; i<colors.length; i++){
+				if(colors[i] < 0 || colors[i] >= PALETTE.length){
+					throw new IllegalArgumentException("No such palette color: " + colors[i]);
+				}
+				this.colors[i] = (byte) colors[i];
+			}
+		}
+
+		/**
+		 * Returns the number of particles of one explosion.
+		 * @return the number of particles
+		 */
+		public int getCount() {
+			return count;
+		}
+	}
+
+	private final float[] x;
+	private final float[] y;
+	private final float[] vx;
+	private final float[] vy;
+	private final float[] age;
+	private final float[] lifetime;
+	private final byte[] color;
+	private final byte[] size;
+	private int count;
+	private long droppedCount;
+	private long randomState;
+	private long lastTime = -1;
+
+	// draw batches: the particles of each shade, in order, found by a counting sort every frame
+	private final int[] shadeStart = new int[SHADES.length + 1];
+	private final int[] order;
+
+	/**
+	 * Creates a new particle system with no particles.
+	 * @param capacity the most particles that can be live at once
+	 * @param seed the seed of the particles' random source
+	 */
+	public ParticleSystem(int capacity, long seed){
+		x = new float[capacity];
+		y = new float[capacity];
+		vx = new float[capacity];
+		vy = new float[capacity];
+		age = new float[capacity];
+		lifetime = new float[capacity];
+		color = new byte[capacity];
+		size = new byte[capacity];
+		order = new int[capacity];
+		// never let the random state be 0, xorshift would get stuck there
+		randomState = seed == 0? 1 : seed;
+	}
+
+	/**
+	 * Throws out the particles of an explosion from the center of a rectangle, spread over its area.
+	 * @param emitter how the explosion throws out its particles
+	 * @param x the x coordinate of the rectangle
+	 * @param y the y coordinate of the rectangle
+	 * @param width the width of the rectangle
+	 * @param height the height of the rectangle
+	 */
+	public void emit(Emitter emitter, int x, int y, int width, int height){
+		float centerX = x + width / 2f;
+		float centerY = y + height / 2f;
+		for(int n=0; n<emitter.count; n++){
+			if(count == this.x.length){
+				droppedCount += emitter.count - n;
+				return;
+			}
+			int i = count++;
+			int direction = nextInt(DIRECTIONS);
+			float dx = DIRECTION_X[direction];
+			float dy = DIRECTION_Y[direction];
+			// start somewhere between the center and the edge, in the direction the particle flies
+			float start = nextFloat() * 0.5f;
+			this.x[i] = centerX + dx * start * width;
+			this.y[i] = centerY + dy * start * height;
+			float speed = emitter.minSpeed + nextFloat() * (emitter.maxSpeed - emitter.minSpeed);
+			vx[i] = dx * speed;
+			vy[i] = dy * speed;
+			age[i] = 0;
+			lifetime[i] = emitter.minLifetime + nextFloat() * (emitter.maxLifetime - emitter.minLifetime);
+			color[i] = emitter.colors[nextInt(emitter.colors.length)];
+			size[i] = (byte) emitter.size;
+		}
+	}
+
+	/**
+	 * Moves and ages the particles to the given time, and removes the ones whose lifetime is over.
+	 * @param time the current time in nanoseconds; the first call only starts the clock
+	 */
+	public void update(long time){
+		long elapsed = lastTime < 0? 0 : Math.max(0, Math.min(MAX_FRAME_NANOS, time - lastTime));
+		lastTime = time;
+		if(elapsed == 0 || count == 0){
+			return;
+		}
+		float dt = elapsed / 1e9f;
+		float drag = (float) Math.pow(DRAG, dt);
+		for(int i=0; i<count; i++){
+			float newAge = age[i] + dt;
+			if(newAge >= lifetime[i]){
+				// the last particle takes this slot; update it next
+				remove(i);
+				i--;
+				continue;
+			}
+			age[i] = newAge;
+			vx[i] *= drag;
+			vy[i] *= drag;
+			x[i] += vx[i] * dt;
+			y[i] += vy[i] * dt;
+		}
+	}
+
+	private void remove(int i){
+		int last = --count;
+		x[i] = x[last];
+		y[i] = y[last];
+		vx[i] = vx[last];
+		vy[i] = vy[last];
+		age[i] = age[last];
+		lifetime[i] = lifetime[last];
+		color[i] = color[last];
+		size[i] = size[last];
+	}
+
+	/**
+	 * Removes all particles, e.g. when a new game starts.
+	 */
+	public void clear(){
+		count = 0;
+	}
+
+	/**
+	 * Draws the particles, one batch per shade.
+	 * @param g2d the graphics context
+	 */
+	public void draw(Graphics2D g2d){
+		if(count == 0){
+			return;
+		}
+		// count the particles of each shade, then place each in its batch
+		Arrays.fill(shadeStart, 0);
+		for(int i=0; i<count; i++){
+			shadeStart[shade(i) + 1]++;
+		}
+		for(int s=0; s<SHADES.length; s++){
+			shadeStart[s + 1] += shadeStart[s];
+		}
+		for(int i=0; i<count; i++){
+			order[shadeStart[shade(i)]++] = i;
+		}
+		// the placing moved each start to the next batch's; draw from the previous end
+		int from = 0;
+		for(int s=0; s<SHADES.length; s++){
+			int to = shadeStart[s];
+			if(to > from){
+				g2d.setColor(SHADES[s]);
+				for(int k=from; k<to; k++){
+					int i = order[k];
+					g2d.fillRect((int) x[i], (int) y[i], size[i], size[i]);
+				}
+			}
+			from = to;
+		}
+	}
+
+	/**
+	 * Returns the shade a particle is drawn in: its color, faded by how much of its lifetime has passed.
+	 */
+	private int shade(int i){
+		int level = (int) (age[i] / lifetime[i] * FADE_LEVELS);
+		return color[i] * FADE_LEVELS + Math.min(level, FADE_LEVELS - 1);
+	}
+
+	/**
+	 * Returns the number of live particles.
+	 * @return the number of live particles
+	 */
+	public int size(){
+		return count;
+	}
+
+	/**
+	 * Returns how many particles were dropped because all slots were in use.
+	 * @return the number of dropped particles
+	 */
+	public long getDroppedCount(){
+		return droppedCount;
+	}
+
+	private int nextInt(int bound){
+		return (int) ((next() >>> 33) % bound);
+	}
+
+	private float nextFloat(){
+		return (next() >>> 40) / (float) (1 << 24);
+	}
+
+	private long next(){
+		long s = randomState;
+		s ^= s << 13;
+		s ^= s >>> 7;
+		s ^= s << 17;
+		randomState = s;
+		return s;
+	}
+}
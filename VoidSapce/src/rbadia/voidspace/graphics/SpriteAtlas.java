@@ -0,0 +1,97 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single image holding several sprites, each in its own named region.
+ * The atlas is created in the screen's pixel format, so sprites are drawn without converting
+ * pixels, and every sprite is drawn from the same image.
+ */
+public class SpriteAtlas {
+	// widest the atlas gets, unless a sprite is wider
+	private static final int MAX_WIDTH = 256;
+	// empty pixels around each region
+	private static final int PADDING = 1;
+
+	private final BufferedImage image;
+	private final Map<String, Rectangle> regions = new HashMap<String, Rectangle>();
+
+	/**
+	 * Packs the given sprites into a new atlas. Sprites are placed in rows, tallest first.
+	 * @param names the sprite names, used to look up their regions
+	 * @param sprites the sprite images, in the same order as the names
+	 * @param gc the graphics configuration of the screen, or null to use a plain ARGB image (e.g. when headless)
+	 */
+	public SpriteAtlas(String[] names, final BufferedImage[] sprites, GraphicsConfiguration gc){
+		Integer[] order = new Integer[sprites.length];
+		int width = MAX_WIDTH;
+		for(int i=0; i<sprites.length; i++){
+			order[i] = i;
+			width = Math.max(width, sprites[i].getWidth() + 2 * PADDING);
+		}
+		Arrays.sort(order, new Comparator<Integer>(){
+			public int compare(Integer a, Integer b) {
+				return sprites[b].getHeight() - sprites[a].getHeight();
+			}
+		});
+
+		// place the sprites left to right, starting a new row when one does not fit
+		int x = 0;
+		int y = 0;
+		int rowHeight = 0;
+		for(int i : order){
+			int w = sprites[i].getWidth() + 2 * PADDING;
+			int h = sprites[i].getHeight() + 2 * PADDING;
+			if(x + w > width){
+				x = 0;
+				y += rowHeight;
+				rowHeight = 0;
+			}
+			regions.put(names[i], new Rectangle(x + PADDING, y + PADDING, sprites[i].getWidth(), sprites[i].getHeight()));
+			x += w;
+			rowHeight = Math.max(rowHeight, h);
+		}
+		int height = Math.max(1, y + rowHeight);
+
+		image = gc == null?
+				new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB) :
+				gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		Graphics2D g = image.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		for(int i=0; i<sprites.length; i++){
+			Rectangle region = regions.get(names[i]);
+			g.drawImage(sprites[i], region.x, region.y, null);
+		}
+		g.dispose();
+	}
+
+	/**
+	 * Returns the atlas image.
+	 * @return the image holding all sprites
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Returns the region of the atlas image holding a sprite.
+	 * @param name the sprite name
+	 * @return the sprite region
+	 */
+	public Rectangle getRegion(String name) {
+		Rectangle region = regions.get(name);
+		if(region == null){
+			throw new IllegalArgumentException("No sprite named " + name);
+		}
+		return region;
+	}
+}
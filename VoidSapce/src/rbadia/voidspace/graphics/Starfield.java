@@ -0,0 +1,93 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.util.Random;
+
+/**
+ * Scrolling star background. The stars are drawn once into a few screen-sized layer images;
+ * each frame every layer is scrolled down at its own speed, which takes at most two image draws
+ * per layer however many stars there are. The back layer is opaque and also erases the screen.
+ */
+public class Starfield {
+	/**
+	 * Default number of stars, the same as the original background.
+	 */
+	public static final int DEFAULT_STAR_COUNT = 50;
+
+	// per layer, from back to front: share of the stars, scroll speed in pixels per second and star color
+	private static final float[] LAYER_SHARE = {0.5f, 0.3f, 0.2f};
+	private static final int[] LAYER_SPEED = {8, 20, 48};
+	private static final Color[] LAYER_COLOR = {Color.DARK_GRAY, Color.GRAY, Color.WHITE};
+
+	private final int width;
+	private final int height;
+	private final BufferedImage[] layers;
+
+	/**
+	 * Creates a new starfield and draws its layers.
+	 * @param width the screen width
+	 * @param height the screen height
+	 * @param starCount the total number of stars over all layers
+	 * @param seed seed for the star positions, so the starfield looks the same every time
+	 */
+	public Starfield(int width, int height, int starCount, long seed){
+		this.width = width;
+		this.height = height;
+		this.layers = new BufferedImage[LAYER_SHARE.length];
+
+		Random rand = new Random(seed);
+		for(int i=0; i<layers.length; i++){
+			layers[i] = createLayer(i == 0);
+			Graphics2D g = layers[i].createGraphics();
+			if(i == 0){
+				g.setColor(Color.BLACK);
+				g.fillRect(0, 0, width, height);
+			}
+			g.setColor(LAYER_COLOR[i]);
+			int stars = Math.round(starCount * LAYER_SHARE[i]);
+			for(int s=0; s<stars; s++){
+				int x = rand.nextInt(width);
+				int y = rand.nextInt(height);
+				g.drawLine(x, y, x, y);
+			}
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Draws the starfield, covering the whole screen.
+	 * @param time the current time in nanoseconds; sets how far each layer has scrolled
+	 * @param g2d the graphics context
+	 * @param observer object to be notified
+	 */
+	public void draw(long time, Graphics2D g2d, ImageObserver observer){
+		for(int i=0; i<layers.length; i++){
+			// layers wrap around, so draw the part that scrolled off the bottom again at the top
+			int offset = (int) (time / 1000000L * LAYER_SPEED[i] / 1000L % height);
+			g2d.drawImage(layers[i], 0, offset, observer);
+			if(offset > 0){
+				g2d.drawImage(layers[i], 0, offset - height, observer);
+			}
+		}
+	}
+
+	/**
+	 * Creates a layer image in the screen's pixel format, so drawing it can be accelerated.
+	 * @param opaque if the layer has no transparent pixels
+	 * @return the layer image
+	 */
+	private BufferedImage createLayer(boolean opaque){
+		if(GraphicsEnvironment.isHeadless()){
+			return new BufferedImage(width, height, opaque? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		}
+		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getDefaultScreenDevice().getDefaultConfiguration();
+		return gc.createCompatibleImage(width, height, opaque? Transparency.OPAQUE : Transparency.BITMASK);
+	}
+}
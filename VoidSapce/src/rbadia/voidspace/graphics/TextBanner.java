@@ -0,0 +1,127 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+
+/**
+ * A line of text drawn on the game screen, laid out once instead of on every frame.
+ * <p>
+ * A growing banner, like the title and the "Game Over" message, starts one point larger than its font
+ * and grows one point per frame until it is as wide as fits. Every size is a keyframe whose font and
+ * metrics are computed when the banner is created, so drawing a frame neither derives fonts nor measures
+ * text; the glyphs themselves come from Java2D's glyph cache. Drawing cached glyphs this way is faster
+ * than blitting a pre-rendered image of the text into the software back buffer.
+ */
+public class TextBanner {
+	private final String text;
+	private final Color color;
+	private final Font[] fonts;
+	private final int[] widths;
+	private final int[] ascents;
+
+	/**
+	 * Creates a banner that does not grow.
+	 * @param text the text
+	 * @param font the font
+	 * @param color the text color
+	 * @param frc the font render context of the screen the banner is drawn on
+	 */
+	public TextBanner(String text, Font font, Color color, FontRenderContext frc){
+		this(text, font, color, frc, 0);
+	}
+
+	/**
+	 * Creates a banner that grows until it is as wide as fits.
+	 * @param text the text
+	 * @param font the font before the first frame; the first frame is one point larger
+	 * @param color the text color
+	 * @param frc the font render context of the screen the banner is drawn on
+	 * @param maxWidth the widest the banner may grow, or 0 if it should not grow
+	 */
+	public TextBanner(String text, Font font, Color color, FontRenderContext frc, int maxWidth){
+		this.text = text;
+		this.color = color;
+
+		// count the sizes that fit; if even the first one doesn't, stay at the starting size
+		int count = 0;
+		if(maxWidth > 0){
+			while(width(text, font.deriveFont(font.getSize2D() + count + 1), frc) <= maxWidth){
+				count++;
+			}
+		}
+		boolean grows = count > 0;
+		count = Math.max(1, count);
+
+		fonts = new Font[count];
+		widths = new int[count];
+		ascents = new int[count];
+		for(int i=0; i<count; i++){
+			Font frameFont = grows? font.deriveFont(font.getSize2D() + i + 1) : font;
+			LineMetrics metrics = frameFont.getLineMetrics(text, frc);
+			fonts[i] = frameFont;
+			widths[i] = width(text, frameFont, frc);
+			ascents[i] = Math.round(metrics.getAscent());
+		}
+	}
+
+	private static int width(String text, Font font, FontRenderContext frc){
+		return (int) Math.round(font.getStringBounds(text, frc).getWidth());
+	}
+
+	/**
+	 * Returns the number of keyframes: one per size the banner grows through.
+	 * @return the number of keyframes
+	 */
+	public int getFrameCount(){
+		return fonts.length;
+	}
+
+	/**
+	 * Returns the width of the text at a keyframe.
+	 * @param frame the keyframe; past the last one, the last one
+	 * @return the width, in pixels
+	 */
+	public int getWidth(int frame){
+		return widths[clamp(frame)];
+	}
+
+	/**
+	 * Returns how far the text rises above its baseline at a keyframe.
+	 * @param frame the keyframe; past the last one, the last one
+	 * @return the ascent, in pixels
+	 */
+	public int getAscent(int frame){
+		return ascents[clamp(frame)];
+	}
+
+	/**
+	 * Draws a keyframe of the banner.
+	 * @param g2d the graphics context to draw on
+	 * @param frame the keyframe; past the last one, the last one
+	 * @param x the left edge of the text
+	 * @param baseline the baseline of the text
+	 */
+	public void draw(Graphics2D g2d, int frame, int x, int baseline){
+		g2d.setFont(fonts[clamp(frame)]);
+		g2d.setPaint(color);
+		g2d.drawString(text, x, baseline);
+	}
+
+	/**
+	 * Draws a keyframe centered on a screen, the way the game's messages are placed.
+	 * @param g2d the graphics context to draw on
+	 * @param frame the keyframe; past the last one, the last one
+	 * @param screenWidth the width of the screen
+	 * @param baseline the baseline of the text
+	 */
+	public void drawCentered(Graphics2D g2d, int frame, int screenWidth, int baseline){
+		draw(g2d, frame, (screenWidth - getWidth(frame)) / 2, baseline);
+	}
+
+	private int clamp(int frame){
+		return Math.max(0, Math.min(fonts.length - 1, frame));
+	}
+}
@@ -0,0 +1,53 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Copy of an image kept in video memory, so drawing it onto an accelerated surface
+ * does not go through system memory. The video memory copy can be lost at any time
+ * (e.g. when the display mode changes), so it is checked and restored from the original image
+ * every time it is used.
+ */
+public class VolatileSprite {
+	private final BufferedImage source;
+	private final GraphicsConfiguration gc;
+	private VolatileImage image;
+
+	/**
+	 * Creates a new video memory copy of an image.
+	 * @param source the original image
+	 * @param gc the graphics configuration of the surface the image is drawn onto
+	 */
+	public VolatileSprite(BufferedImage source, GraphicsConfiguration gc){
+		this.source = source;
+		this.gc = gc;
+	}
+
+	/**
+	 * Returns the video memory copy of the image, creating or restoring it if needed.
+	 * @return the image to draw
+	 */
+	public Image getImage(){
+		int state = image == null? VolatileImage.IMAGE_INCOMPATIBLE : image.validate(gc);
+		if(state == VolatileImage.IMAGE_INCOMPATIBLE){
+			if(image != null){
+				image.flush();
+			}
+			image = gc.createCompatibleVolatileImage(source.getWidth(), source.getHeight(), Transparency.TRANSLUCENT);
+			state = VolatileImage.IMAGE_RESTORED;
+		}
+		if(state == VolatileImage.IMAGE_RESTORED){
+			Graphics2D g = image.createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(source, 0, 0, null);
+			g.dispose();
+		}
+		return image;
+	}
+}
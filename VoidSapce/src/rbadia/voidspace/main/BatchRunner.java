@@ -0,0 +1,272 @@
+package rbadia.voidspace.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import rbadia.voidspace.replay.Recording;
+import rbadia.voidspace.simulation.InputSnapshot;
+import rbadia.voidspace.simulation.LevelTable;
+import rbadia.voidspace.simulation.Simulation;
+
+/**
+ * Runs many games headlessly, in parallel on all cores, and prints statistics of how they went:
+ * the score distribution, how long the player survived, and how fast the simulation ran.
+ * Nothing is drawn and nothing waits for real time, so it also works with {@code java.awt.headless=true}.
+ * <p>
+ * Each game starts a new game on the title screen and plays until the game is over or the step limit
+ * is reached, with the player's controls either chosen at random or taken from a recorded session.
+ * Games get their seeds from the base seed, so a batch gives the same results on any number of threads.
+ * <p>
+ * Usage: {@code BatchRunner [-games N] [-threads N] [-seed N] [-asteroids N] [-levels <table>] [-tickRate N]
+ * [-maxTicks N] [-input random|<recording>]}, where the level table is a file or a table that comes with
+ * the game, e.g. {@code chaos.txt}.
+ */
+public class BatchRunner {
+	private static final int DEFAULT_GAMES = 1000;
+	private static final int DEFAULT_ASTEROIDS = 6;
+	// half an hour of play at the base tick rate
+	private static final long DEFAULT_MAX_TICKS = 30 * 60 * Simulation.BASE_TICK_RATE;
+	private static final int WIDTH = 500;
+	private static final int HEIGHT = 400;
+
+	// random input holds each combination of controls for up to half a second
+	private static final int MAX_HOLD_TICKS = Simulation.BASE_TICK_RATE / 2;
+
+	private int games = DEFAULT_GAMES;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long seed = new Random().nextLong();
+	private int asteroidCount = DEFAULT_ASTEROIDS;
+	private LevelTable levels = LevelTable.getDefault();
+	private int tickRate = Simulation.BASE_TICK_RATE;
+	private long maxTicks = DEFAULT_MAX_TICKS;
+	private Recording script;
+
+	/**
+	 * The outcome of one game.
+	 */
+	private static class Result {
+		long score;
+		long asteroidsDestroyed;
+		// steps from the "Get Ready" message until the game was over
+		long survivalTicks;
+		// all steps, including the title and "Get Ready" screens
+		long ticks;
+		boolean gameOver;
+	}
+
+	/**
+	 * @param args the options
+	 */
+	public static void main(String[] args) throws Exception {
+		BatchRunner runner = new BatchRunner();
+		try{
+			runner.parse(args);
+		}
+		catch(IllegalArgumentException e){
+			System.err.println(e.getMessage());
+			System.err.println("Usage: BatchRunner [-games N] [-threads N] [-seed N] [-asteroids N] [-levels <table>]"
+					+ " [-tickRate N] [-maxTicks N] [-input random|<recording>]");
+			System.exit(2);
+		}
+		runner.run();
+	}
+
+	/**
+	 * Reads the command line options.
+	 * @param args the options
+	 * @throws IOException if the level table or the input recording can't be read
+	 */
+	private void parse(String[] args) throws IOException {
+		for(int i=0; i<args.length; i+=2){
+			if(i + 1 >= args.length){
+				throw new IllegalArgumentException("Missing value for " + args[i]);
+			}
+			String value = args[i + 1];
+			switch(args[i]){
+			case "-games":
+				games = Integer.parseInt(value);
+				break;
+			case "-threads":
+				threads = Integer.parseInt(value);
+				break;
+			case "-seed":
+				seed = Long.parseLong(value);
+				break;
+			case "-asteroids":
+				asteroidCount = Integer.parseInt(value);
+				break;
+			case "-levels":
+				levels = LevelTable.load(value);
+				break;
+			case "-tickRate":
+				tickRate = Integer.parseInt(value);
+				break;
+			case "-maxTicks":
+				maxTicks = Long.parseLong(value);
+				break;
+			case "-input":
+				script = "random".equals(value)? null : Recording.read(new File(value));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		if(games <= 0 || threads <= 0 || maxTicks <= 0){
+			throw new IllegalArgumentException("Counts must be positive");
+		}
+		if(tickRate <= 0 || tickRate % Simulation.BASE_TICK_RATE != 0){
+			throw new IllegalArgumentException("Tick rate must be a multiple of " + Simulation.BASE_TICK_RATE + ": " + tickRate);
+		}
+		if(script != null && script.getTicks() == 0){
+			throw new IllegalArgumentException("The input recording has no steps");
+		}
+	}
+
+	/**
+	 * Runs all the games and prints the statistics.
+	 */
+	private void run() throws Exception {
+		System.out.printf(Locale.ROOT, "%d games on %d threads: seed %d, %d asteroids, %s levels, %d steps/s, at most %d steps, %s input%n",
+				games, threads, seed, asteroidCount, levels.getName(), tickRate, maxTicks, script == null? "random" : "recorded");
+
+		// one seed per game, independent of how the games are spread over the threads
+		Random seeds = new Random(seed);
+		List<Callable<Result>> tasks = new ArrayList<Callable<Result>>(games);
+		for(int i=0; i<games; i++){
+			final long gameSeed = seeds.nextLong();
+			tasks.add(new Callable<Result>(){
+				public Result call() {
+					return play(gameSeed);
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long start = System.nanoTime();
+		List<Future<Result>> futures = pool.invokeAll(tasks);
+		long elapsed = System.nanoTime() - start;
+		pool.shutdown();
+
+		Result[] results = new Result[games];
+		for(int i=0; i<games; i++){
+			results[i] = futures.get(i).get();
+		}
+		report(results, elapsed);
+	}
+
+	/**
+	 * Plays one game.
+	 * @param gameSeed the seed of the game and of its random input
+	 * @return the outcome of the game
+	 */
+	private Result play(long gameSeed){
+		long tickNanos = 1000000000L / tickRate;
+		Simulation simulation = new Simulation(WIDTH, HEIGHT, gameSeed);
+		simulation.setAsteroidCount(asteroidCount);
+		simulation.setLevelTable(levels);
+		GameStatus status = simulation.getStatus();
+		Random input = new Random(~gameSeed);
+
+		Result result = new Result();
+		long startTick = -1;
+		int mask = 0;
+		int hold = 0;
+		int run = -1;
+		long runLeft = 0;
+		for(long tick=0; tick<maxTicks; tick++){
+			if(startTick < 0){
+				// keep asking for a new game until the "Get Ready" message shows
+				if(status.isGameStarting()){
+					startTick = tick;
+				}
+				mask = InputSnapshot.START;
+			}
+			else if(script != null){
+				// follow the recorded controls, over and over
+				while(runLeft == 0){
+					run = (run + 1) % script.getRunCount();
+					runLeft = script.getRunLength(run);
+				}
+				mask = script.getRunMask(run);
+				runLeft--;
+			}
+			else if(--hold <= 0){
+				mask = input.nextInt(InputSnapshot.START);
+				hold = 1 + input.nextInt(MAX_HOLD_TICKS * tickRate / Simulation.BASE_TICK_RATE);
+			}
+			simulation.step(tickNanos, InputSnapshot.of(mask));
+			result.ticks++;
+			if(status.isGameOver()){
+				result.gameOver = true;
+				break;
+			}
+		}
+		result.score = status.getScore();
+		result.asteroidsDestroyed = status.getAsteroidsDestroyed();
+		result.survivalTicks = startTick < 0? 0 : result.ticks - startTick;
+		return result;
+	}
+
+	/**
+	 * Prints the statistics of all games.
+	 * @param results the outcome of each game
+	 * @param elapsedNanos how long running the games took
+	 */
+	private void report(Result[] results, long elapsedNanos){
+		long[] scores = new long[results.length];
+		long[] destroyed = new long[results.length];
+		long[] survival = new long[results.length];
+		long ticks = 0;
+		int over = 0;
+		for(int i=0; i<results.length; i++){
+			scores[i] = results[i].score;
+			destroyed[i] = results[i].asteroidsDestroyed;
+			survival[i] = results[i].survivalTicks;
+			ticks += results[i].ticks;
+			if(results[i].gameOver){
+				over++;
+			}
+		}
+
+		System.out.printf(Locale.ROOT, "%d of %d games over before the step limit%n", over, results.length);
+		System.out.println("                      mean       min       p10       p25       p50       p75       p90       max");
+		printDistribution("score", scores);
+		printDistribution("asteroids destroyed", destroyed);
+		printDistribution("survival steps", survival);
+
+		double seconds = elapsedNanos / 1e9;
+		System.out.printf(Locale.ROOT, "%d steps in %.2f s: %.0f steps/s, %.0f steps/s per thread, %.0fx real time per thread%n",
+				ticks, seconds, ticks / seconds, ticks / seconds / threads, ticks / seconds / threads / tickRate);
+	}
+
+	private static void printDistribution(String name, long[] values){
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		double sum = 0;
+		for(long value : sorted){
+			sum += value;
+		}
+		System.out.printf(Locale.ROOT, "%-20s%10.1f%10d%10d%10d%10d%10d%10d%10d%n", name, sum / sorted.length,
+				sorted[0], percentile(sorted, 10), percentile(sorted, 25), percentile(sorted, 50),
+				percentile(sorted, 75), percentile(sorted, 90), sorted[sorted.length - 1]);
+	}
+
+	/**
+	 * Returns a percentile of sorted values, by the nearest rank.
+	 * @param sorted the values, in increasing order
+	 * @param percentile the percentile (0 to 100)
+	 * @return the value at the percentile
+	 */
+	private static long percentile(long[] sorted, double percentile){
+		int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+	}
+}
@@ -1,15 +1,34 @@
 package rbadia.voidspace.main;
 
+import java.util.concurrent.locks.LockSupport;
+
+import rbadia.voidspace.perf.PerfStats;
+import rbadia.voidspace.replay.SessionRecorder;
+import rbadia.voidspace.simulation.InputSnapshot;
+import rbadia.voidspace.simulation.Simulation;
+
 /**
  * Implements the main game loop, i.e. what actions should be taken on each frame update.
  */
 public class GameLoop implements Runnable{
+	/**
+	 * Supported logic update rates for the fixed-step loop, in updates per second.
+	 */
+	public static final int TICK_RATE_60 = 60;
+	public static final int TICK_RATE_120 = 120;
+	public static final int TICK_RATE_240 = 240;
+
+	// the most logic updates run back to back after a stall before the game is allowed to slow down
+	private static final int MAX_CATCH_UP_TICKS = 10;
+
 	private GameScreen gameScreen;
 	private GameLogic gameLogic;
 	private InputHandler inputHandler;
+	private int tickRate;
+	private SessionRecorder recorder;
 
 	/**
-	 * Creates a new game loop.
+	 * Creates a new game loop that sleeps 1/60th of a second between frames.
 	 * @param gameScreen the game screen
 	 * @param gameLogic the game logic handler
 	 * @param inputHandler the user input handler
@@ -20,32 +39,117 @@ public class GameLoop implements Runnable{
 		this.inputHandler = inputHandler;
 	}
 
+	/**
+	 * Creates a new fixed-step game loop. The game logic is updated at exactly the given rate,
+	 * regardless of how long drawing takes; the screen is drawn as often as time allows.
+	 * @param gameScreen the game screen
+	 * @param gameLogic the game logic handler
+	 * @param inputHandler the user input handler
+	 * @param tickRate the number of logic updates per second, e.g. {@link #TICK_RATE_120}
+	 */
+	public GameLoop(GameScreen gameScreen, GameLogic gameLogic, InputHandler inputHandler, int tickRate){
+		this(gameScreen, gameLogic, inputHandler);
+		// entity speeds are given per 1/60th of a second, and are spread evenly over whole sub-steps
+		if(tickRate <= 0 || tickRate % Simulation.BASE_TICK_RATE != 0){
+			throw new IllegalArgumentException("Tick rate must be a multiple of " + Simulation.BASE_TICK_RATE + ": " + tickRate);
+		}
+		this.tickRate = tickRate;
+	}
+
+	/**
+	 * Returns the duration of each logic update.
+	 * @return the duration of an update in nanoseconds
+	 */
+	public long getTickNanos() {
+		return tickRate > 0? 1000000000L / tickRate : Simulation.BASE_TICK_NANOS;
+	}
+
+	/**
+	 * Records the input of every logic update, so that the session can be replayed.
+	 * Must be set before the loop starts.
+	 * @param recorder the session recorder
+	 */
+	public void setRecorder(SessionRecorder recorder) {
+		this.recorder = recorder;
+	}
+
 	/**
 	 * Implements the run interface method. Should be called by the running thread.
 	 */
 	public void run() {
+		if(tickRate > 0){
+			runFixedStep();
+			return;
+		}
+		PerfStats perf = gameLogic.getSimulation().getPerfStats();
+		long lastFrameTime = System.nanoTime();
 		while(true){
 			// main game loop
 			try{
 				// sleep/wait for 1/60th of a second,
-				// for a resulting refresh rate of 60 frames per second (fps) 
+				// for a resulting refresh rate of 60 frames per second (fps)
 				Thread.sleep(1000/60);
 			}
 			catch(Exception e){
 				e.printStackTrace();
 			}
-			// check game or level ending conditions
-			gameLogic.checkConditions();
-			
-			// update the game graphics
-			gameScreen.updateScreen();
-			
-			// handle input
-			inputHandler.handleInput(gameScreen);
-			
-			// repaint the graphics unto screen
-			gameScreen.repaint();
+			// update the game logic once
+			tick(getTickNanos());
+
+			// update the game graphics and put them unto screen
+			gameScreen.drawScreen(0f);
+			lastFrameTime = perf.record(PerfStats.Phase.FRAME, lastFrameTime);
+		}
+	}
+
+	/**
+	 * Runs the loop with a fixed logic rate. Elapsed time is measured with {@link System#nanoTime()} and
+	 * accumulated; one logic update is run for every full tick of accumulated time, so the game catches up
+	 * after a slow frame or GC pause. The screen is then drawn once, with the leftover fraction of a tick
+	 * used to draw moving entities between updates.
+	 */
+	private void runFixedStep(){
+		final long tickNanos = getTickNanos();
+		long previousTime = System.nanoTime();
+		long accumulator = 0;
+		PerfStats perf = gameLogic.getSimulation().getPerfStats();
+		long lastFrameTime = previousTime;
+		while(true){
+			long currentTime = System.nanoTime();
+			long elapsed = currentTime - previousTime;
+			previousTime = currentTime;
+
+			// after a long stall only catch up a bounded number of updates,
+			// otherwise drawing would stop until the game has caught up
+			accumulator += Math.min(elapsed, MAX_CATCH_UP_TICKS * tickNanos);
+			while(accumulator >= tickNanos){
+				tick(tickNanos);
+				accumulator -= tickNanos;
+			}
+
+			// update the game graphics and repaint them unto screen
+			gameScreen.drawScreen((float) accumulator / tickNanos);
+			lastFrameTime = perf.record(PerfStats.Phase.FRAME, lastFrameTime);
+
+			// wait until the next update is due
+			long waitNanos = tickNanos - accumulator - (System.nanoTime() - currentTime);
+			if(waitNanos > 0){
+				LockSupport.parkNanos(waitNanos);
+			}
+		}
+	}
+
+	/**
+	 * Runs a single logic update, after applying the input received since the last one.
+	 * @param tickNanos the duration of the update in nanoseconds
+	 */
+	private void tick(long tickNanos){
+		InputSnapshot input = inputHandler.pollInput();
+		Simulation simulation = gameLogic.getSimulation();
+		simulation.step(tickNanos, input);
+		if(recorder != null){
+			recorder.record(input, simulation.getStatus().getSnapshot());
 		}
 	}
 
-}
\ No newline at end of file
+}
@@ -1,62 +1,74 @@
 package rbadia.voidspace.main;
+import java.awt.BorderLayout;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.EnumMap;
+import java.util.Map;
 
-import javax.swing.JLabel;
 import javax.swing.JPanel;
 
 import rbadia.voidspace.graphics.GraphicsManager;
+import rbadia.voidspace.graphics.ParticleSystem;
+import rbadia.voidspace.graphics.Starfield;
+import rbadia.voidspace.graphics.TextBanner;
 import rbadia.voidspace.model.Asteroid;
 import rbadia.voidspace.model.Bullet;
+import rbadia.voidspace.model.BulletPool;
 import rbadia.voidspace.model.EnemyShip;
+import rbadia.voidspace.model.EntityStore;
 import rbadia.voidspace.model.Ship;
-import rbadia.voidspace.sounds.SoundManager;
+import rbadia.voidspace.perf.PerfOverlay;
+import rbadia.voidspace.perf.PerfStats;
+import rbadia.voidspace.simulation.EnemyFleet;
+import rbadia.voidspace.simulation.Simulation;
+import rbadia.voidspace.simulation.SimulationListener.Explosion;
 
 /**
- * Main game screen. Handles all game graphics updates and some of the game logic.
+ * Main game screen. Draws the current state of the game simulation.
  */
 public class GameScreen extends JPanel {
 	private static final long serialVersionUID = 1L;
 	
 	private BufferedImage backBuffer;
-	private Graphics2D g2d;
-	
-	private static final int NEW_SHIP_DELAY = 500;
-	private static final int NEW_ASTEROID_DELAY = 500;
-	private static final int firstLevel = 5;
-	private static final int secondLevel = 15;
-	private static final int thirdLevel = 25;
-	
-	private long lastShipTime;
-	private long lastAsteroidTime;
-	
-	private Rectangle asteroidExplosion;
-	private Rectangle shipExplosion;
-	private Rectangle enemyShipExplosion;
-	
-	private JLabel shipsValueLabel;
-	private JLabel destroyedValueLabel;
-	private JLabel scoreValueLabel;
+	private Graphics2D bufferGraphics;
 
-	private Random rand;
+	// active rendering canvas; null when drawing through the back buffer and repaint()
+	private Canvas canvas;
+	private BufferStrategy strategy;
+	private int numBuffers;
 	
+	private HudPanel hud;
+
 	private Font originalFont;
-	private Font bigFont;
-	private Font biggestFont;
+	private TextBanner titleBanner;
+	private TextBanner newGameBanner;
+	private TextBanner exitGameBanner;
+	private TextBanner getReadyBanner;
+	private TextBanner gameOverBanner;
+	// keyframes of the growing messages; the title only grows the first time it shows
+	private int titleFrame;
+	private int gameOverFrame;
 	
 	private GameStatus status;
-	private SoundManager soundMan;
 	private GraphicsManager graphicsMan;
-	private GameLogic gameLogic;
+	// built on first draw, so that setStarCount doesn't draw the layers twice at startup
+	private Starfield starfield;
+	private int starCount = Starfield.DEFAULT_STAR_COUNT;
+	private ParticleSystem particles;
+	private final Map<Explosion, ParticleSystem.Emitter> explosionEmitters =
+			new EnumMap<Explosion, ParticleSystem.Emitter>(Explosion.class);
+	private Simulation simulation;
+	private Asteroid asteroidView;
+	private PerfStats perf;
+	private PerfOverlay perfOverlay;
 
 	/**
 	 * This method initializes 
@@ -64,9 +76,6 @@ public class GameScreen extends JPanel {
 	 */
 	public GameScreen() {
 		super();
-		// initialize random number generator
-		rand = new Random();
-		
 		initialize();
 		
 		// init graphics manager
@@ -74,7 +83,13 @@ public class GameScreen extends JPanel {
 		
 		// init back buffer image
 		backBuffer = new BufferedImage(500, 400, BufferedImage.TYPE_INT_RGB);
-		g2d = backBuffer.createGraphics();
+		bufferGraphics = backBuffer.createGraphics();
+
+		// init explosion particles
+		particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY, 0L);
+		explosionEmitters.put(Explosion.ASTEROID, ParticleSystem.ASTEROID);
+		explosionEmitters.put(Explosion.SHIP, ParticleSystem.SHIP);
+		explosionEmitters.put(Explosion.ENEMY_SHIP, ParticleSystem.ENEMY_SHIP);
 	}
 
 	/**
@@ -98,271 +113,255 @@ public class GameScreen extends JPanel {
 	}
 	
 	/**
-	 * Update the game screen's backbuffer image.
+	 * Switches the screen to active rendering: frames are drawn straight into the buffers of a
+	 * {@link BufferStrategy} from the game loop thread and flipped onto the screen, instead of
+	 * going through the back buffer image, the repaint manager and {@link #paintComponent(Graphics)}.
+	 * Must be called before the screen is shown.
+	 * @param numBuffers number of buffers to use, 2 for double buffering or 3 for triple buffering
 	 */
-	public void updateScreen(){
-		Ship ship = gameLogic.getShip();
-		Asteroid asteroid = gameLogic.getAsteroid();
-		List<Bullet> bullets = gameLogic.getBullets();
-		List<Asteroid> asteroids = gameLogic.getAsteroids();
-		EnemyShip enemyShip = gameLogic.getEnemyShip();
-		List<Bullet> enemyBullets = gameLogic.getEnemyBullets();
-		
+	public void setActiveRendering(int numBuffers){
+		this.numBuffers = numBuffers;
+		this.canvas = new Canvas();
+		canvas.setIgnoreRepaint(true);
+		canvas.setFocusable(false);
+		canvas.setPreferredSize(new Dimension(500, 400));
+		this.setIgnoreRepaint(true);
+		this.setLayout(new BorderLayout());
+		this.add(canvas, BorderLayout.CENTER);
+	}
+
+	/**
+	 * Draws the current game state and puts it on the screen.
+	 * Moving entities are drawn ahead of their last updated position by the given fraction
+	 * of a logic update, so that rendering between updates stays smooth.
+	 * The simulation must not be stepped while the screen is drawn.
+	 * @param alpha how far (0 to 1) the current time is between the last logic update and the next one
+	 */
+	public void drawScreen(float alpha){
+		long drawStart = System.nanoTime();
+
 		// set orignal font - for later use
 		if(this.originalFont == null){
-			this.originalFont = g2d.getFont();
-			this.bigFont = originalFont;
+			this.originalFont = bufferGraphics.getFont();
+			initBanners(bufferGraphics);
 		}
-		
-		// erase screen
-		g2d.setPaint(Color.BLACK);
-		g2d.fillRect(0, 0, getSize().width, getSize().height);
 
-		// draw 50 random stars
-		drawStars(50);
-		
+		if(canvas == null){
+			// draw into the back buffer and let Swing copy it to the screen
+			drawScreen(bufferGraphics, alpha);
+			repaint();
+			perf.record(PerfStats.Phase.DRAW, drawStart);
+			return;
+		}
+
+		// the buffer strategy can only be created once the canvas is on screen
+		if(strategy == null){
+			if(!canvas.isDisplayable()){
+				return;
+			}
+			canvas.createBufferStrategy(numBuffers);
+			strategy = canvas.getBufferStrategy();
+			graphicsMan.useVolatileImages(canvas.getGraphicsConfiguration());
+		}
+
+		// the buffers live in video memory and may be lost while drawing; draw the frame again if so
+		do{
+			do{
+				Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+				try{
+					drawScreen(g2d, alpha);
+				}
+				finally{
+					g2d.dispose();
+				}
+			} while(strategy.contentsRestored());
+			strategy.show();
+		} while(strategy.contentsLost());
+		// flush the window system's queue so the frame is shown now
+		Toolkit.getDefaultToolkit().sync();
+		perf.record(PerfStats.Phase.DRAW, drawStart);
+	}
+
+	/**
+	 * Draws the current game state, and the performance overlay if it is showing.
+	 * @param g2d the graphics context to draw on
+	 * @param alpha how far (0 to 1) the current time is between the last logic update and the next one
+	 */
+	private void drawScreen(Graphics2D g2d, float alpha){
+		drawGame(g2d, alpha);
+		perfOverlay.draw(g2d);
+	}
+
+	/**
+	 * Draws the current game state.
+	 * @param g2d the graphics context to draw on
+	 * @param alpha how far (0 to 1) the current time is between the last logic update and the next one
+	 */
+	private void drawGame(Graphics2D g2d, float alpha){
+		Ship ship = simulation.getShip();
+		BulletPool bullets = simulation.getBullets();
+		EntityStore asteroids = simulation.getAsteroids();
+		EnemyFleet enemyShips = simulation.getEnemyShips();
+		// read the whole status at once, so it can not change halfway through the frame
+		GameStatus.Snapshot state = status.getSnapshot();
+
+		// erase screen and draw the stars
+		if(starfield == null){
+			starfield = new Starfield(500, 400, starCount, 0L);
+		}
+		starfield.draw(simulation.getTime(), g2d, this);
+		// move the explosion particles on to the current time
+		particles.update(simulation.getTime());
+
 		// if the game is starting, draw "Get Ready" message
-		if(status.isGameStarting()){
-			drawGetReady();
+		if(state.isGameStarting()){
+			drawGetReady(g2d);
 			return;
 		}
-		
+
 		// if the game is over, draw the "Game Over" message
-		if(status.isGameOver()){
+		if(state.isGameOver()){
 			// draw the message
-			drawGameOver();
-			
-			long currentTime = System.currentTimeMillis();
-			// draw the explosions until their time passes
-			if((currentTime - lastAsteroidTime) < NEW_ASTEROID_DELAY){
-				graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-			}
-			if((currentTime - lastShipTime) < NEW_SHIP_DELAY){
-				graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
-			}
+			drawGameOver(g2d);
+
+			// draw the explosions until they fade out
+			particles.draw(g2d);
 			return;
 		}
-		
+
 		// the game has not started yet
-		if(!status.isGameStarted()){
+		if(!state.isGameStarted()){
 			// draw game title screen
-			initialMessage();
+			initialMessage(g2d);
 			return;
 		}
 
-		// draw asteroid or enemy ships
-		if(status.getAsteroidsDestroyed() < firstLevel){
-			this.drawAsteroid(asteroid);
-		}
-		else if(status.getAsteroidsDestroyed() < secondLevel){
-			// draws multiple asteroids
-			for(int i=0; i<asteroids.size();i++){
-				this.drawAsteroid(asteroids.get(i));
+		// draw asteroids, unless they are hidden while the last one destroyed explodes
+		if(!state.isNewAsteroid()){
+			int count = simulation.getActiveAsteroidCount();
+			for(int i=0; i<count;i++){
+				if(asteroids.isAlive(i)){
+					this.drawAsteroid(asteroidView.at(i), alpha, g2d);
+				}
 			}
 		}
 
-		else if(status.getAsteroidsDestroyed() < thirdLevel) {
-			// draws multiple asteroids moving on a non-vertical form
-			switch (rand.nextInt(2)) {
-				case 0:
-					for (int i = 0; i < asteroids.size(); i++) {
-						this.drawAsteroid(asteroids.get(i));
-					}
-					break;
-				case 1:
-					for (int i = 0; i < asteroids.size(); i++) {
-						this.drawAsteroidDiagonal(asteroids.get(i), asteroid.getSpeed());
-					}
-					break;
+		// draw the enemy ships and their bullets
+		for(int i=0; i<enemyShips.size(); i++){
+			EnemyShip enemyShip = enemyShips.get(i);
+			int dx = simulation.interpolatedDistance(enemyShips.getVelocityX(i), alpha);
+			int dy = simulation.interpolatedDistance(enemyShips.getVelocityY(i), alpha);
+			graphicsMan.drawEnemyShip(enemyShip, enemyShip.x + dx, enemyShip.y + dy, g2d, this);
+			BulletPool enemyBullets = enemyShips.getBullets(i);
+			for(int j=0; j<enemyBullets.size(); j++){
+				Bullet bullet = enemyBullets.get(j);
+				int bulletDy = simulation.interpolatedDistance(bullet.getSpeed(), alpha);
+				graphicsMan.drawBullet(bullet, bullet.x, bullet.y + bulletDy, g2d, this);
 			}
-		} 
-		else{
-			// draws multiple asteroids moving on a non-vertical form
-			// it also adds an enemy ship
-			switch (rand.nextInt(2)) {
-				case 0:
-					for (int i = 0; i < asteroids.size(); i++) {
-						this.drawAsteroid(asteroids.get(i));
-					}
-					break;
-				case 1:
-					for (int i = 0; i < asteroids.size(); i++) {
-						this.drawAsteroidDiagonal(asteroids.get(i),2*asteroid.getSpeed());
-					}
-					break;
-			}
-			this.drawEnemyShip(enemyShip, enemyBullets);
 		}
 
 		// draw bullets
 		for(int i=0; i<bullets.size(); i++){
 			Bullet bullet = bullets.get(i);
-			graphicsMan.drawBullet(bullet, g2d, this);
-			
-			boolean remove = gameLogic.moveBullet(bullet);
-			if(remove){
-				bullets.remove(i);
-				i--;
-			}
+			int dy = simulation.interpolatedDistance(bullet.getSpeed(), alpha);
+			graphicsMan.drawBullet(bullet, bullet.x, bullet.y - dy, g2d, this);
 		}
-		
-		// check bullet-asteroid collisions
-		if(status.getAsteroidsDestroyed() < firstLevel){
-			this.BulletAsteroidCollision(asteroid, bullets);
-		}
-		else{
-			for(int i=0;i<asteroids.size();i++){
-				this.BulletAsteroidCollision(asteroids.get(i), bullets);
-			}
-		}
-		
-		// draw ship
-		this.drawShip(ship);
-		
-		// check ship-asteroid collision
-		if(status.getAsteroidsDestroyed() < firstLevel) {
-			this.ShipAsteroidCollision(asteroid, ship);
-		}
-		else{
-			for(int i=0;i<asteroids.size();i++){
-				this.ShipAsteroidCollision(asteroids.get(i), ship);
-			}
-		}
-
-		//check bullet-enemyShip collisions
-		this.BulletEnemyShipCollision(enemyShip,bullets);
 
-		// check ship-enemyShip collisions
-		this.ShipEnemyShipCollision(enemyShip,ship);
-
-		// check enemybullet-ship collisions
-		this.EnemyBulletShipCollision(enemyBullets,ship);
+		// draw ship, unless it blew up
+		if(!state.isNewShip()){
+			graphicsMan.drawShip(ship, g2d, this);
+		}
 
-		
-		// update asteroids destroyed label
-		destroyedValueLabel.setText(Long.toString(status.getAsteroidsDestroyed()));
-		
-		// update ships left label
-		shipsValueLabel.setText(Integer.toString(status.getShipsLeft()));
+		// draw the explosions over everything else
+		particles.draw(g2d);
 
-		//update score value
-		scoreValueLabel.setText(Long.toString(status.getScore()));
+		// update ships left, asteroids destroyed and score, if they changed
+		long hudStart = System.nanoTime();
+		hud.update(state);
+		perf.record(PerfStats.Phase.HUD, hudStart);
 	}
 
 	/**
-	 * Draws the "Game Over" message.
+	 * Draws the "Game Over" message, growing one point per frame until it fills the screen.
+	 * @param g2d the graphics context to draw on
 	 */
-	private void drawGameOver() {
-		String gameOverStr = "GAME OVER";
-		Font currentFont = biggestFont == null? bigFont : biggestFont;
-		float fontSize = currentFont.getSize2D();
-		bigFont = currentFont.deriveFont(fontSize + 1).deriveFont(Font.BOLD);
-		FontMetrics fm = g2d.getFontMetrics(bigFont);
-		int strWidth = fm.stringWidth(gameOverStr);
-		if(strWidth > this.getWidth() - 10){
-			biggestFont = currentFont;
-			bigFont = biggestFont;
-			fm = g2d.getFontMetrics(bigFont);
-			strWidth = fm.stringWidth(gameOverStr);
+	private void drawGameOver(Graphics2D g2d) {
+		int frame = gameOverFrame;
+		if(gameOverFrame < gameOverBanner.getFrameCount()){
+			gameOverFrame++;
 		}
-		int ascent = fm.getAscent();
-		int strX = (this.getWidth() - strWidth)/2;
-		int strY = (this.getHeight() + ascent)/2;
-		g2d.setFont(bigFont);
-		g2d.setPaint(Color.WHITE);
-		g2d.drawString(gameOverStr, strX, strY);
+		int strY = (this.getHeight() + gameOverBanner.getAscent(frame))/2;
+		gameOverBanner.drawCentered(g2d, frame, this.getWidth(), strY);
 	}
 
 	/**
 	 * Draws the initial "Get Ready!" message.
+	 * @param g2d the graphics context to draw on
 	 */
-	private void drawGetReady() {
-		String readyStr = "Get Ready!";
-		g2d.setFont(originalFont.deriveFont(originalFont.getSize2D() + 1));
-		FontMetrics fm = g2d.getFontMetrics();
-		int ascent = fm.getAscent();
-		int strWidth = fm.stringWidth(readyStr);
-		int strX = (this.getWidth() - strWidth)/2;
-		int strY = (this.getHeight() + ascent)/2;
-		g2d.setPaint(Color.WHITE);
-		g2d.drawString(readyStr, strX, strY);
+	private void drawGetReady(Graphics2D g2d) {
+		int strY = (this.getHeight() + getReadyBanner.getAscent(0))/2;
+		getReadyBanner.drawCentered(g2d, 0, this.getWidth(), strY);
 	}
 
 	/**
-	 * Draws the specified number of stars randomly on the game screen.
-	 * @param numberOfStars the number of stars to draw
+	 * Display initial game title screen. The title grows one point per frame until it fills the screen.
+	 * @param g2d the graphics context to draw on
 	 */
-	private void drawStars(int numberOfStars) {
-		g2d.setColor(Color.WHITE);
-		for(int i=0; i<numberOfStars; i++){
-			int x = (int)(Math.random() * this.getWidth());
-			int y = (int)(Math.random() * this.getHeight());
-			g2d.drawLine(x, y, x, y);
+	private void initialMessage(Graphics2D g2d) {
+		int frame = titleFrame;
+		if(titleFrame < titleBanner.getFrameCount()){
+			titleFrame++;
 		}
+		int ascent = titleBanner.getAscent(frame);
+		titleBanner.drawCentered(g2d, frame, this.getWidth(), (this.getHeight() + ascent)/2 - ascent);
+
+		int strY = (this.getHeight() + newGameBanner.getAscent(0))/2 + ascent + 16;
+		newGameBanner.drawCentered(g2d, 0, this.getWidth(), strY);
+		exitGameBanner.drawCentered(g2d, 0, this.getWidth(), strY + 16);
 	}
 
 	/**
-	 * Display initial game title screen.
+	 * Lays out the screen messages once, in sizes based on the screen's default font.
+	 * @param g2d the graphics context the messages will be drawn on
 	 */
-	private void initialMessage() {
-		String gameTitleStr = "Void Space";
-		
-		Font currentFont = biggestFont == null? bigFont : biggestFont;
-		float fontSize = currentFont.getSize2D();
-		bigFont = currentFont.deriveFont(fontSize + 1).deriveFont(Font.BOLD).deriveFont(Font.ITALIC);
-		FontMetrics fm = g2d.getFontMetrics(bigFont);
-		int strWidth = fm.stringWidth(gameTitleStr);
-		if(strWidth > this.getWidth() - 10){
-			bigFont = currentFont;
-			biggestFont = currentFont;
-			fm = g2d.getFontMetrics(currentFont);
-			strWidth = fm.stringWidth(gameTitleStr);
-		}
-		g2d.setFont(bigFont);
-		int ascent = fm.getAscent();
-		int strX = (this.getWidth() - strWidth)/2;
-		int strY = (this.getHeight() + ascent)/2 - ascent;
-		g2d.setPaint(Color.YELLOW);
-		g2d.drawString(gameTitleStr, strX, strY);
-		
-		g2d.setFont(originalFont);
-		fm = g2d.getFontMetrics();
-		String newGameStr = "Press <Space> to Start a New Game.";
-		strWidth = fm.stringWidth(newGameStr);
-		strX = (this.getWidth() - strWidth)/2;
-		strY = (this.getHeight() + fm.getAscent())/2 + ascent + 16;
-		g2d.setPaint(Color.WHITE);
-		g2d.drawString(newGameStr, strX, strY);
-		
-		fm = g2d.getFontMetrics();
-		String exitGameStr = "Press <Esc> to Exit the Game.";
-		strWidth = fm.stringWidth(exitGameStr);
-		strX = (this.getWidth() - strWidth)/2;
-		strY = strY + 16;
-		g2d.drawString(exitGameStr, strX, strY);
+	private void initBanners(Graphics2D g2d) {
+		FontRenderContext frc = g2d.getFontRenderContext();
+		int maxWidth = this.getWidth() - 10;
+		titleBanner = new TextBanner("Void Space", originalFont.deriveFont(Font.ITALIC), Color.YELLOW, frc, maxWidth);
+		newGameBanner = new TextBanner("Press <Space> to Start a New Game.", originalFont, Color.WHITE, frc);
+		exitGameBanner = new TextBanner("Press <Esc> to Exit the Game.", originalFont, Color.WHITE, frc);
+		getReadyBanner = new TextBanner("Get Ready!", originalFont.deriveFont(originalFont.getSize2D() + 1), Color.WHITE, frc);
+		gameOverBanner = new TextBanner("GAME OVER", originalFont.deriveFont(Font.BOLD), Color.WHITE, frc, maxWidth);
 	}
 	
 	/**
 	 * Prepare screen for game over.
 	 */
 	public void doGameOver(){
-		shipsValueLabel.setForeground(new Color(49, 51, 53));
+		hud.setShipsColor(new Color(49, 51, 53));
 	}
 	
 	/**
 	 * Prepare screen for a new game.
 	 */
 	public void doNewGame(){		
-		lastAsteroidTime = -NEW_ASTEROID_DELAY;
-		lastShipTime = -NEW_SHIP_DELAY;
-				
-		bigFont = originalFont;
-		biggestFont = null;
+		gameOverFrame = 0;
+		particles.clear();
 				
-        // set labels' text
-		shipsValueLabel.setForeground(Color.BLACK);
-		shipsValueLabel.setText(Integer.toString(status.getShipsLeft()));
-		destroyedValueLabel.setText(Long.toString(status.getAsteroidsDestroyed()));
+		hud.setShipsColor(Color.BLACK);
+		hud.update(status.getSnapshot());
+	}
+
+	/**
+	 * Shows an explosion, with as many particles as it takes; earlier explosions keep showing until they fade out.
+	 * @param what what blew up
+	 * @param x the x coordinate of what blew up
+	 * @param y the y coordinate of what blew up
+	 * @param width the width of what blew up
+	 * @param height the height of what blew up
+	 */
+	public void showExplosion(Explosion what, int x, int y, int width, int height){
+		particles.emit(explosionEmitters.get(what), x, y, width, height);
 	}
 
 	/**
@@ -374,346 +373,51 @@ public class GameScreen extends JPanel {
 	}
 
 	/**
-	 * Sets the game logic handler
-	 * @param gameLogic the game logic handler
+	 * Sets the number of stars in the background. Drawing cost does not depend on the number of stars.
+	 * The background is drawn again on the next frame.
+	 * @param starCount the total number of stars
 	 */
-	public void setGameLogic(GameLogic gameLogic) {
-		this.gameLogic = gameLogic;
-		this.status = gameLogic.getStatus();
-		this.soundMan = gameLogic.getSoundMan();
+	public void setStarCount(int starCount) {
+		this.starCount = starCount;
+		this.starfield = null;
 	}
 
 	/**
-	 * Sets the label that displays the value for asteroids destroyed.
-	 * @param destroyedValueLabel the label to set
-	 */
-	public void setDestroyedValueLabel(JLabel destroyedValueLabel) {
-		this.destroyedValueLabel = destroyedValueLabel;
-	}
-	
-	/**
-	 * Sets the label that displays the value for ship (lives) left
-	 * @param shipsValueLabel the label to set
+	 * Shows the performance overlay if it is hidden, or hides it if it is showing.
 	 */
-	public void setShipsValueLabel(JLabel shipsValueLabel) {
-		this.shipsValueLabel = shipsValueLabel;
+	public void togglePerfOverlay() {
+		perfOverlay.toggle();
 	}
 
-	public void setScoreValueLabel(JLabel scoreValueLabel) {this.scoreValueLabel = scoreValueLabel;}
-	
 	/**
-	 * it draws a single asteroid
-	 * @param asteroid the asteroid 
-	 */
-	public void drawAsteroid(Asteroid asteroid){
-		if(!status.isNewAsteroid()){
-			// draw the asteroid until it reaches the bottom of the screen
-			if(asteroid.getY() + asteroid.getSpeed() < this.getHeight()){
-				asteroid.translate(0, asteroid.getSpeed());
-				graphicsMan.drawAsteroid(asteroid, g2d, this);
-			}
-			else{
-				asteroid.setLocation(rand.nextInt(getWidth() - asteroid.width), 0);
-			}
-		}
-		else{
-			long currentTime = System.currentTimeMillis();
-			if((currentTime - lastAsteroidTime) > NEW_ASTEROID_DELAY){
-				// draw a new asteroid
-				lastAsteroidTime = currentTime;
-				status.setNewAsteroid(false);
-				asteroid.setLocation(rand.nextInt(getWidth() - asteroid.width), 0);
-			}
-			else{
-				// draw explosion
-				graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-			}
-		}
-	}
-	
-	/**
-	 * checks if there has been any collisions between asteroids and bullets
-	 * @param asteroid the asteroid on screen 
-	 * @param bullets the bullets on screen
-	 * @return true if there has been any collisions false if there has not been collisions
-	 */
-	public boolean BulletAsteroidCollision(Asteroid asteroid, List<Bullet> bullets){
-		for(int i=0; i<bullets.size(); i++){
-			Bullet bullet = bullets.get(i);
-			if(asteroid.intersects(bullet)){
-				// increase asteroids destroyed count
-				status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
-				status.setScore(status.getScore() + 150);
-				// "remove" asteroid
-		        asteroidExplosion = new Rectangle(
-		        		asteroid.x,
-		        		asteroid.y,
-		        		asteroid.width,
-		        		asteroid.height);
-				asteroid.setLocation(-asteroid.width, -asteroid.height);
-				lastAsteroidTime = System.currentTimeMillis();
-				graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-				if(status.getAsteroidsDestroyed() < firstLevel) {
-					status.setNewAsteroid(true);
-				}
-				// play asteroid explosion sound
-				soundMan.playAsteroidExplosionSound();
-				
-				// remove bullet
-				bullets.remove(i);
-				return true;
-			}
-		}
-		return false; 
-	}
-	
-	/**
-	 * it draws the players ship
-	 * @param ship the ship
+	 * Sets the game logic handler
+	 * @param gameLogic the game logic handler
 	 */
-	public void drawShip(Ship ship){
-		if(!status.isNewShip()){
-			// draw it in its current location
-			graphicsMan.drawShip(ship, g2d, this);
-		}
-		else{
-			// draw a new one
-			long currentTime = System.currentTimeMillis();
-			if((currentTime - lastShipTime) > NEW_SHIP_DELAY){
-				lastShipTime = currentTime;
-				status.setNewShip(false);
-				ship = gameLogic.newShip(this);
-			}
-			else{
-				// draw explosion
-				graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
-			}
-		}
+	public void setGameLogic(GameLogic gameLogic) {
+		this.simulation = gameLogic.getSimulation();
+		this.asteroidView = new Asteroid(simulation.getAsteroids());
+		this.perf = simulation.getPerfStats();
+		this.perfOverlay = new PerfOverlay(perf);
+		this.status = gameLogic.getStatus();
 	}
-	
-	/**
-	 * it draws the enemy ship
-	 * @param enemyShip the enemy ship
-	 * @param enemyBullets it creates bullets for the enemy ship
-	 */
-	public void drawEnemyShip(EnemyShip enemyShip, List<Bullet> enemyBullets) {
-		if (!status.isNewEnemyShip()) {
-			// draw it in its current location
-			// draw the asteroid until it reaches the bottom of the screen
-			if(enemyShip.getX() + enemyShip.getSpeed() + enemyShip.getWidth() < this.getWidth()) {
-				enemyShip.translate(enemyShip.getSpeed(), 0);
-				graphicsMan.drawEnemyShip(enemyShip, g2d, this);
-				for(int i=0; i<enemyBullets.size(); i++){
-					Bullet bullet = enemyBullets.get(i);
-					graphicsMan.drawBullet(bullet, g2d, this);
-					gameLogic.moveEnemyBullet(bullet, enemyShip);
-				}
-			}
-			else if(enemyShip.getX() - enemyShip.getSpeed() > 0){
-				while(enemyShip.getX() - enemyShip.getSpeed() > 0) {
-					enemyShip.translate(-enemyShip.getSpeed(), 0);
-				}
-			}
-
-		} else {
-			// draw a new one
-			long currentTime = System.currentTimeMillis();
-			if ((currentTime - lastShipTime) > NEW_SHIP_DELAY) {
-				lastAsteroidTime = currentTime;
-				status.setNewEnemyShip(false);
-				enemyShip = gameLogic.newEnemyShip(this);
-				enemyShip.setLocation(rand.nextInt(getWidth() - enemyShip.width), 0);
-			} else {
-				// draw explosion
-				graphicsMan.drawEnemyShipExplosion(shipExplosion, g2d, this);
-					}
-			}
-		}
 
 	/**
-	 * checks if there has been any collisions between asteroids and the ship
-	 * @param asteroid the asteroid on screen
-	 * @param ship the player's ship
+	 * Sets the HUD that displays the ships left, asteroids destroyed and score.
+	 * @param hud the HUD
 	 */
-	public void ShipAsteroidCollision(Asteroid asteroid, Ship ship){
-		if(asteroid.intersects(ship)){
-			// decrease number of ships left
-			status.setShipsLeft(status.getShipsLeft() - 1);
-			
-			status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
-
-			status.setScore(status.getScore() + 150);
-
-			// "remove" asteroid
-	        asteroidExplosion = new Rectangle(
-	        		asteroid.x,
-	        		asteroid.y,
-	        		asteroid.width,
-	        		asteroid.height);
-			asteroid.setLocation(-asteroid.width, -asteroid.height);
-			status.setNewAsteroid(true);
-			lastAsteroidTime = System.currentTimeMillis();
-			
-			// "remove" ship
-	        shipExplosion = new Rectangle(
-	        		ship.x,
-	        		ship.y,
-	        		ship.width,
-	        		ship.height);
-			ship.setLocation(this.getWidth() + ship.width, -ship.height);
-			graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
-			status.setNewShip(true);
-			lastShipTime = System.currentTimeMillis();
-			
-			// play ship explosion sound
-			soundMan.playShipExplosionSound();
-			// play asteroid explosion sound
-			soundMan.playAsteroidExplosionSound();
-		}
+	public void setHud(HudPanel hud) {
+		this.hud = hud;
 	}
 	
 	/**
-	 * it draws the asteroids diagonally
+	 * it draws a single asteroid
 	 * @param asteroid the asteroid
-	 * @param speed how fast the asteroid "moves"
+	 * @param alpha fraction of a logic update to draw the asteroid ahead of its position
+	 * @param g2d the graphics context to draw on
 	 */
-	public void drawAsteroidDiagonal(Asteroid asteroid, int speed){
-		if(!status.isNewAsteroid()){
-			// draw the asteroid until it reaches the bottom of the screen
-			if(asteroid.getY() + asteroid.getSpeed() < this.getHeight()){
-				switch(rand.nextInt(2)){
-					case 0:
-						asteroid.translate(speed, asteroid.getSpeed());
-						break;
-					case 1:
-						asteroid.translate(-speed, asteroid.getSpeed());
-						break;
-				}
-				graphicsMan.drawAsteroid(asteroid, g2d, this);
-			}
-			else{
-				asteroid.setLocation(rand.nextInt(getWidth() - asteroid.width), 0);
-			}
-		}
-		else{
-			long currentTime = System.currentTimeMillis();
-			if((currentTime - lastAsteroidTime) > NEW_ASTEROID_DELAY){
-				// draw a new asteroid
-				lastAsteroidTime = currentTime;
-				status.setNewAsteroid(false);
-				asteroid.setLocation(rand.nextInt(getWidth() - asteroid.width), 0);
-			}
-			else{
-				// draw explosion
-				graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-			}
-		}
-	}
-	
-	/**
-	 * Checks for any collisions between the enemy ship and bullets
-	 * @param enemyShip the enemy ship on screen
-	 * @param bullets the bullets on screen
-	 * @return true if there has been a collision false if there has not been a collision
-	 */
-	public boolean BulletEnemyShipCollision(EnemyShip enemyShip, List<Bullet> bullets){
-		for(int i=0; i<bullets.size(); i++){
-			Bullet bullet = bullets.get(i);
-			if(enemyShip.intersects(bullet)){
-				//increase score
-				status.setScore(status.getScore() + 300);
-				// "remove" enemyShip
-				enemyShipExplosion = new Rectangle(
-						enemyShip.x,
-						enemyShip.y,
-						enemyShip.width,
-						enemyShip.height);
-				enemyShip.setLocation(-enemyShip.width, -enemyShip.height);
-				lastAsteroidTime = System.currentTimeMillis();
-				graphicsMan.drawEnemyShipExplosion(enemyShipExplosion, g2d, this);
-				status.setNewEnemyShip(true);
-
-				// play ship explosion sound
-				soundMan.playShipExplosionSound();
-
-				// remove bullet
-				bullets.remove(i);
-				return true;
-			}
-		}
-		return false;
-	}
-	
-	/**
-	 * checks for any collisions between the enemy ship and the player's ship
-	 * @param enemyShip the enemy ship on screen
-	 * @param ship the player's screen
-	 */
-	public void ShipEnemyShipCollision(EnemyShip enemyShip, Ship ship){
-		if(enemyShip.intersects(ship)){
-			// decrease number of ships left
-			status.setShipsLeft(status.getShipsLeft() - 1);
-			// increase score
-			status.setScore(status.getScore() + 300);
-
-			// "remove" enemyShip
-			asteroidExplosion = new Rectangle(
-					enemyShip.x,
-					enemyShip.y,
-					enemyShip.width,
-					enemyShip.height);
-			enemyShip.setLocation(-enemyShip.width, -enemyShip.height);
-			status.setNewAsteroid(true);
-			lastAsteroidTime = System.currentTimeMillis();
-
-			// "remove" ship
-			shipExplosion = new Rectangle(
-					ship.x,
-					ship.y,
-					ship.width,
-					ship.height);
-			ship.setLocation(this.getWidth() + ship.width, -ship.height);
-			graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
-			status.setNewShip(true);
-			status.setNewEnemyShip(true);
-			lastShipTime = System.currentTimeMillis();
-
-			// play ship explosion sound
-			soundMan.playShipExplosionSound();
-		}
-	}
-
-	/**
-	 * checks for any collisions between enemy bullets and the player's ship
-	 * @param enemyBullets enemy bullets 
-	 * @param ship the player's ship
-	 */
-	public void EnemyBulletShipCollision(List<Bullet> enemyBullets, Ship ship){
-		for(int i=0; i<enemyBullets.size();i++) {
-			if (enemyBullets.get(i).intersects(ship)) {
-				// decrease number of ships left
-				status.setShipsLeft(status.getShipsLeft() - 1);
-
-				// "remove" bullet
-				enemyBullets.remove(i);
-				lastAsteroidTime = System.currentTimeMillis();
-
-				// "remove" ship
-				shipExplosion = new Rectangle(
-						ship.x,
-						ship.y,
-						ship.width,
-						ship.height);
-				ship.setLocation(this.getWidth() + ship.width, -ship.height);
-				graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
-				status.setNewShip(true);
-				lastShipTime = System.currentTimeMillis();
-
-				// play ship explosion sound
-				soundMan.playShipExplosionSound();
-			}
-		}
+	private void drawAsteroid(Asteroid asteroid, float alpha, Graphics2D g2d){
+		int dx = simulation.interpolatedVelocityDistance(asteroid.getVelocityX(), alpha);
+		int dy = simulation.interpolatedVelocityDistance(asteroid.getVelocityY(), alpha);
+		graphicsMan.drawAsteroid(asteroid, asteroid.x + dx, asteroid.y + dy, g2d, this);
 	}
 }
-
-
@@ -1,71 +1,105 @@
 package rbadia.voidspace.main;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Container for game flags and/or status variables.
+ * <p>
+ * The game simulation updates the status while it steps. Counters are atomic, so adding to them
+ * never loses an update. Code running on other threads (drawing, the HUD, input handling) should not
+ * read the fields one by one, but read a {@link Snapshot} with {@link #getSnapshot()}: an immutable copy
+ * of all fields, replaced through a single volatile reference whenever the simulation calls {@link #publish()}.
+ * Nothing takes a lock.
  */
 public class GameStatus {
 	// game flags
-	private boolean gameStarted = false;
-	private boolean gameStarting = false;
-	private boolean gameOver = false;
-	
+	private volatile boolean gameStarted = false;
+	private volatile boolean gameStarting = false;
+	private volatile boolean gameOver = false;
+
 	// status variables
-	private boolean newShip;
-	private boolean newAsteroid;
-	private long asteroidsDestroyed = 0;
-	private int shipsLeft;
-	private long score =0;
-	private boolean newEnemyShip;
+	private volatile boolean newShip;
+	private volatile boolean newAsteroid;
+	private final AtomicLong asteroidsDestroyed = new AtomicLong();
+	private final AtomicInteger shipsLeft = new AtomicInteger();
+	private final AtomicLong score = new AtomicLong();
+	private volatile boolean newEnemyShip;
+
+	// last published copy of the fields above
+	private volatile Snapshot snapshot;
 
 	public GameStatus(){
-		
+		snapshot = new Snapshot(this);
+	}
+
+	/**
+	 * Publishes the current status to other threads. A new snapshot is only created if something changed.
+	 * @return the published snapshot
+	 */
+	public Snapshot publish(){
+		Snapshot current = snapshot;
+		if(current.matches(this)){
+			return current;
+		}
+		current = new Snapshot(this);
+		snapshot = current;
+		return current;
+	}
+
+	/**
+	 * Returns the last published status. All values in it were read at the same time.
+	 * @return the status snapshot
+	 */
+	public Snapshot getSnapshot(){
+		return snapshot;
 	}
-	
+
 	/**
 	 * Indicates if the game has already started or not.
 	 * @return if the game has already started or not
 	 */
-	public synchronized boolean isGameStarted() {
+	public boolean isGameStarted() {
 		return gameStarted;
 	}
-	
-	public synchronized void setGameStarted(boolean gameStarted) {
+
+	public void setGameStarted(boolean gameStarted) {
 		this.gameStarted = gameStarted;
 	}
-	
+
 	/**
 	 * Indicates if the game is starting ("Get Ready" message is displaying) or not.
 	 * @return if the game is starting or not.
 	 */
-	public synchronized boolean isGameStarting() {
+	public boolean isGameStarting() {
 		return gameStarting;
 	}
-	
-	public synchronized void setGameStarting(boolean gameStarting) {
+
+	public void setGameStarting(boolean gameStarting) {
 		this.gameStarting = gameStarting;
 	}
-	
+
 	/**
 	 * Indicates if the game has ended and the "Game Over" message is displaying.
 	 * @return if the game has ended and the "Game Over" message is displaying.
 	 */
-	public synchronized boolean isGameOver() {
+	public boolean isGameOver() {
 		return gameOver;
 	}
-	
-	public synchronized void setGameOver(boolean gameOver) {
+
+	public void setGameOver(boolean gameOver) {
 		this.gameOver = gameOver;
 	}
-	
+
 	/**
 	 * Indicates if a new ship should be created/drawn.
 	 * @return if a new ship should be created/drawn
 	 */
-	public synchronized boolean isNewShip() {
+	public boolean isNewShip() {
 		return newShip;
 	}
 
-	public synchronized void setNewShip(boolean newShip) {
+	public void setNewShip(boolean newShip) {
 		this.newShip = newShip;
 	}
 
@@ -73,54 +107,153 @@ public class GameStatus {
 	 * Indicates if a new asteroid should be created/drawn.
 	 * @return if a new asteroid should be created/drawn
 	 */
-	public synchronized boolean isNewAsteroid() {
+	public boolean isNewAsteroid() {
 		return newAsteroid;
 	}
 
-	public synchronized void setNewAsteroid(boolean newAsteroid) {
+	public void setNewAsteroid(boolean newAsteroid) {
 		this.newAsteroid = newAsteroid;
 	}
 
 	/**
-	 * Returns the number of asteroid destroyed. 
+	 * Returns the number of asteroid destroyed.
 	 * @return the number of asteroid destroyed
 	 */
-	public synchronized long getAsteroidsDestroyed() {
-		return asteroidsDestroyed;
+	public long getAsteroidsDestroyed() {
+		return asteroidsDestroyed.get();
+	}
+
+	public void setAsteroidsDestroyed(long asteroidsDestroyed) {
+		this.asteroidsDestroyed.set(asteroidsDestroyed);
 	}
 
-	public synchronized void setAsteroidsDestroyed(long asteroidsDestroyed) {
-		this.asteroidsDestroyed = asteroidsDestroyed;
+	/**
+	 * Counts one more asteroid destroyed.
+	 * @return the new number of asteroids destroyed
+	 */
+	public long addAsteroidDestroyed() {
+		return asteroidsDestroyed.incrementAndGet();
 	}
 
 	/**
 	 * Returns the number ships/lives left.
 	 * @return the number ships left
 	 */
-	public synchronized int getShipsLeft() {
-		return shipsLeft;
+	public int getShipsLeft() {
+		return shipsLeft.get();
 	}
 
-	public synchronized void setShipsLeft(int shipsLeft) {
-		this.shipsLeft = shipsLeft;
+	public void setShipsLeft(int shipsLeft) {
+		this.shipsLeft.set(shipsLeft);
+	}
+
+	/**
+	 * Takes away one ship/life.
+	 * @return the new number of ships left
+	 */
+	public int loseShip() {
+		return shipsLeft.decrementAndGet();
 	}
 
 	/**
 	 * Returns the number of the score.
 	 * @return the score
      */
-	public synchronized long getScore() { return score;}
+	public long getScore() { return score.get();}
 
-	public synchronized void setScore(long score) { this.score = score;}
+	public void setScore(long score) { this.score.set(score);}
+
+	/**
+	 * Adds points to the score.
+	 * @param points the points to add
+	 * @return the new score
+	 */
+	public long addScore(long points) { return score.addAndGet(points);}
 
 	/**
 	 * Indicates if a new enemy ship should be created/drawn.
 	 * @return if a new enemy ship should be created/drawn
      */
-	public synchronized boolean isNewEnemyShip(){return newEnemyShip;}
+	public boolean isNewEnemyShip(){return newEnemyShip;}
 
 
-	public synchronized void setNewEnemyShip(boolean newEnemyShip) {
+	public void setNewEnemyShip(boolean newEnemyShip) {
 		this.newEnemyShip = newEnemyShip;
 	}
+
+	/**
+	 * Immutable copy of the game status at one point in time.
+	 */
+	public static final class Snapshot {
+		private final boolean gameStarted;
+		private final boolean gameStarting;
+		private final boolean gameOver;
+		private final boolean newShip;
+		private final boolean newAsteroid;
+		private final boolean newEnemyShip;
+		private final long asteroidsDestroyed;
+		private final int shipsLeft;
+		private final long score;
+
+		private Snapshot(GameStatus status){
+			this.gameStarted = status.gameStarted;
+			this.gameStarting = status.gameStarting;
+			this.gameOver = status.gameOver;
+			this.newShip = status.newShip;
+			this.newAsteroid = status.newAsteroid;
+			this.newEnemyShip = status.newEnemyShip;
+			this.asteroidsDestroyed = status.asteroidsDestroyed.get();
+			this.shipsLeft = status.shipsLeft.get();
+			this.score = status.score.get();
+		}
+
+		/**
+		 * Indicates if this snapshot holds the same values as the given status.
+		 * @param status the status
+		 * @return if nothing changed since this snapshot was taken
+		 */
+		private boolean matches(GameStatus status){
+			return gameStarted == status.gameStarted && gameStarting == status.gameStarting
+					&& gameOver == status.gameOver && newShip == status.newShip
+					&& newAsteroid == status.newAsteroid && newEnemyShip == status.newEnemyShip
+					&& asteroidsDestroyed == status.asteroidsDestroyed.get()
+					&& shipsLeft == status.shipsLeft.get() && score == status.score.get();
+		}
+
+		public boolean isGameStarted() {
+			return gameStarted;
+		}
+
+		public boolean isGameStarting() {
+			return gameStarting;
+		}
+
+		public boolean isGameOver() {
+			return gameOver;
+		}
+
+		public boolean isNewShip() {
+			return newShip;
+		}
+
+		public boolean isNewAsteroid() {
+			return newAsteroid;
+		}
+
+		public boolean isNewEnemyShip() {
+			return newEnemyShip;
+		}
+
+		public long getAsteroidsDestroyed() {
+			return asteroidsDestroyed;
+		}
+
+		public int getShipsLeft() {
+			return shipsLeft;
+		}
+
+		public long getScore() {
+			return score;
+		}
+	}
 }
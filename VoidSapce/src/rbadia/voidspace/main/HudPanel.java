@@ -0,0 +1,261 @@
+package rbadia.voidspace.main;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+
+/**
+ * Heads-up display below the game screen: ships left, asteroids destroyed and score.
+ * <p>
+ * The game loop thread passes every status snapshot to {@link #update(GameStatus.Snapshot)}, which does
+ * nothing unless a value changed, and then only asks Swing to repaint the cell of that value.
+ * The component itself is only changed and painted on the Event Dispatch Thread. Captions are rendered
+ * into an image once, and values are drawn digit by digit from a pre-rendered strip of digit glyphs,
+ * so painting neither lays out text nor allocates strings.
+ */
+public class HudPanel extends JComponent {
+	private static final long serialVersionUID = 1L;
+
+	private static final int SHIPS = 0;
+	private static final int DESTROYED = 1;
+	private static final int SCORE = 2;
+	private static final String[] CAPTIONS = {"Ships Left: ", "Asteroids Destroyed: ", "Score: "};
+	private static final String GLYPHS = "0123456789-";
+	private static final int MINUS = 10;
+	// room reserved for each value, in digits
+	private static final int VALUE_DIGITS = 8;
+
+	private final Font font;
+	private final Color captionColor;
+	private final int[] captionWidths = new int[CAPTIONS.length];
+	// digits are drawn in cells of the same width, so values don't jump around as they change
+	private final int digitWidth;
+	private final int valueWidth;
+	private final int ascent;
+	private final int lineHeight;
+	private final int minWidth;
+
+	// values to show, and the color of the ships left; written by the game loop thread
+	private final AtomicLongArray values = new AtomicLongArray(CAPTIONS.length);
+	private volatile Color shipsColor;
+	// last snapshot passed to update(); only used by the game loop thread
+	private GameStatus.Snapshot lastState;
+
+	// pre-rendered images; only used by the Event Dispatch Thread
+	private BufferedImage captions;
+	private final Map<Color, BufferedImage> digitStrips = new HashMap<Color, BufferedImage>();
+
+	/**
+	 * Creates a new HUD with the look of the default label font, showing 3 ships left.
+	 */
+	public HudPanel(){
+		Font labelFont = UIManager.getFont("Label.font");
+		Color labelColor = UIManager.getColor("Label.foreground");
+		this.font = labelFont != null? labelFont : new Font(Font.DIALOG, Font.BOLD, 12);
+		this.captionColor = labelColor != null? labelColor : Color.BLACK;
+		this.shipsColor = captionColor;
+		values.set(SHIPS, 3);
+
+		BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = scratch.createGraphics();
+		FontMetrics fm = g2d.getFontMetrics(font);
+		int width = 0;
+		for(int i=0; i<GLYPHS.length(); i++){
+			width = Math.max(width, fm.charWidth(GLYPHS.charAt(i)));
+		}
+		this.digitWidth = width;
+		this.valueWidth = VALUE_DIGITS * digitWidth;
+		this.ascent = fm.getAscent();
+		this.lineHeight = fm.getHeight();
+		int totalWidth = 0;
+		for(int i=0; i<CAPTIONS.length; i++){
+			captionWidths[i] = fm.stringWidth(CAPTIONS[i]);
+			totalWidth += captionWidths[i] + valueWidth;
+		}
+		this.minWidth = totalWidth;
+		g2d.dispose();
+
+		setOpaque(false);
+		setMinimumSize(new Dimension(minWidth, lineHeight));
+		setPreferredSize(new Dimension(minWidth, lineHeight));
+	}
+
+	/**
+	 * Shows the values of a status snapshot. Only the cells of values that changed are repainted.
+	 * Should be called by the game loop thread after each frame is drawn.
+	 * @param state the status to show
+	 */
+	public void update(GameStatus.Snapshot state){
+		// the simulation only publishes a new snapshot when something changed
+		if(state == lastState){
+			return;
+		}
+		lastState = state;
+		set(SHIPS, state.getShipsLeft());
+		set(DESTROYED, state.getAsteroidsDestroyed());
+		set(SCORE, state.getScore());
+	}
+
+	/**
+	 * Sets the color of the ships left, e.g. to dim it when the game is over. May be called from any thread.
+	 * @param color the color
+	 */
+	public void setShipsColor(Color color){
+		if(!color.equals(shipsColor)){
+			shipsColor = color;
+			repaintValue(SHIPS);
+		}
+	}
+
+	private void set(int field, long value){
+		if(values.get(field) != value){
+			values.set(field, value);
+			repaintValue(field);
+		}
+	}
+
+	/**
+	 * Asks Swing to repaint the cell of a value. {@link #repaint(Rectangle)} is safe to call from any thread;
+	 * the painting itself happens on the Event Dispatch Thread.
+	 * @param field the value
+	 */
+	private void repaintValue(int field){
+		int width = getWidth();
+		repaint(valueX(field, width), 0, valueCellWidth(width), getHeight());
+	}
+
+	/**
+	 * Returns how much wider than needed each caption and value cell is, so that the cells fill the HUD.
+	 */
+	private int extraWidth(int width){
+		return Math.max(0, width - minWidth) / (2 * CAPTIONS.length);
+	}
+
+	private int valueCellWidth(int width){
+		return valueWidth + extraWidth(width);
+	}
+
+	/**
+	 * Returns where a value starts: after the cells of the values before it, and its caption cell.
+	 */
+	private int valueX(int field, int width){
+		int extra = extraWidth(width);
+		int x = 0;
+		for(int i=0; i<field; i++){
+			x += captionWidths[i] + valueWidth + 2 * extra;
+		}
+		return x + captionWidths[field] + extra;
+	}
+
+	/**
+	 * Draws the captions right-aligned in their cells, each followed by its value left-aligned in the next
+	 * cell, like labels in a grid with the extra space shared evenly.
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		int width = getWidth();
+		int y = (getHeight() - lineHeight) / 2;
+		if(captions == null || captions.getWidth() != Math.max(1, width)){
+			captions = renderCaptions(width);
+		}
+		g.drawImage(captions, 0, y, null);
+
+		Rectangle clip = g.getClipBounds();
+		int cellWidth = valueCellWidth(width);
+		for(int field=0; field<CAPTIONS.length; field++){
+			int x = valueX(field, width);
+			if(clip == null || clip.intersects(x, 0, cellWidth, getHeight())){
+				drawValue(g, values.get(field), x, y, field == SHIPS? shipsColor : captionColor);
+			}
+		}
+	}
+
+	/**
+	 * Draws a value digit by digit from the glyph strip of its color.
+	 */
+	private void drawValue(Graphics g, long value, int x, int y, Color color){
+		BufferedImage strip = digitStrips.get(color);
+		if(strip == null){
+			strip = renderGlyphs(color);
+			digitStrips.put(color, strip);
+		}
+		int digits = 1;
+		for(long rest = value / 10; rest != 0; rest /= 10){
+			digits++;
+		}
+		if(value < 0){
+			drawGlyph(g, strip, MINUS, x, y);
+			x += digitWidth;
+		}
+		// last digit first, from the right
+		long rest = value;
+		for(int i=digits - 1; i>=0; i--){
+			drawGlyph(g, strip, (int) Math.abs(rest % 10), x + i * digitWidth, y);
+			rest /= 10;
+		}
+	}
+
+	private void drawGlyph(Graphics g, BufferedImage strip, int glyph, int x, int y){
+		int sx = glyph * digitWidth;
+		g.drawImage(strip, x, y, x + digitWidth, y + lineHeight, sx, 0, sx + digitWidth, lineHeight, null);
+	}
+
+	private BufferedImage renderCaptions(int width){
+		BufferedImage image = createImage(Math.max(1, width));
+		Graphics2D g2d = createGraphics(image, captionColor);
+		for(int field=0; field<CAPTIONS.length; field++){
+			g2d.drawString(CAPTIONS[field], valueX(field, width) - captionWidths[field], ascent);
+		}
+		g2d.dispose();
+		return image;
+	}
+
+	private BufferedImage renderGlyphs(Color color){
+		BufferedImage image = createImage(GLYPHS.length() * digitWidth);
+		Graphics2D g2d = createGraphics(image, color);
+		FontMetrics fm = g2d.getFontMetrics();
+		for(int i=0; i<GLYPHS.length(); i++){
+			// center each glyph in its cell
+			char c = GLYPHS.charAt(i);
+			g2d.drawString(String.valueOf(c), i * digitWidth + (digitWidth - fm.charWidth(c)) / 2, ascent);
+		}
+		g2d.dispose();
+		return image;
+	}
+
+	private BufferedImage createImage(int width){
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		if(gc != null){
+			return gc.createCompatibleImage(width, lineHeight, Transparency.TRANSLUCENT);
+		}
+		return new BufferedImage(width, lineHeight, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	/**
+	 * Returns a graphics context for drawing text into an image the way labels draw it.
+	 */
+	private Graphics2D createGraphics(BufferedImage image, Color color){
+		Graphics2D g2d = image.createGraphics();
+		Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+		if(hints instanceof Map){
+			g2d.addRenderingHints((Map<?, ?>) hints);
+		}
+		g2d.setFont(font);
+		g2d.setColor(color);
+		return g2d;
+	}
+}
@@ -0,0 +1,91 @@
+package rbadia.voidspace.main;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer, single-consumer ring of timestamped key events. The AWT event thread
+ * adds events; the game loop thread takes them at the start of each simulation step.
+ * Neither side blocks, takes a lock or allocates.
+ */
+class InputEventQueue {
+
+	/**
+	 * Receives the events taken from the queue.
+	 */
+	interface Handler {
+		/**
+		 * Called once for every event, oldest first.
+		 * @param keyCode the key code, as in {@link java.awt.event.KeyEvent#getKeyCode()}
+		 * @param pressed true if the key was pressed, false if it was released
+		 * @param time when the event was received, from {@link System#nanoTime()}
+		 */
+		void event(int keyCode, boolean pressed, long time);
+	}
+
+	private final int[] keyCodes;
+	private final boolean[] pressed;
+	private final long[] times;
+	private final int mask;
+
+	// next slot to write; only written by the producer
+	private final AtomicLong tail = new AtomicLong();
+	// next slot to read; only written by the consumer
+	private final AtomicLong head = new AtomicLong();
+	// producer's last read of head, so it rarely has to read the consumer's counter
+	private long cachedHead;
+
+	/**
+	 * Creates a new, empty queue.
+	 * @param capacity the most events waiting at once; must be a power of two
+	 */
+	InputEventQueue(int capacity){
+		if(Integer.bitCount(capacity) != 1){
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		keyCodes = new int[capacity];
+		pressed = new boolean[capacity];
+		times = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Adds an event to the queue. Must only be called from the producer thread.
+	 * @param keyCode the key code
+	 * @param isPressed true if the key was pressed, false if it was released
+	 * @param time when the event was received, from {@link System#nanoTime()}
+	 * @return false if the queue is full and the event was dropped
+	 */
+	boolean offer(int keyCode, boolean isPressed, long time){
+		long t = tail.get();
+		if(t - cachedHead == keyCodes.length){
+			cachedHead = head.get();
+			if(t - cachedHead == keyCodes.length){
+				return false;
+			}
+		}
+		int slot = (int) t & mask;
+		keyCodes[slot] = keyCode;
+		pressed[slot] = isPressed;
+		times[slot] = time;
+		// publish the event to the consumer
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Takes all the events in the queue. Must only be called from the consumer thread.
+	 * @param handler receives the events
+	 * @return the number of events taken
+	 */
+	int drain(Handler handler){
+		long h = head.get();
+		long t = tail.get();
+		for(long i = h; i < t; i++){
+			int slot = (int) i & mask;
+			handler.event(keyCodes[slot], pressed[slot], times[slot]);
+		}
+		// hand the slots back to the producer
+		head.lazySet(t);
+		return (int) (t - h);
+	}
+}
@@ -3,152 +3,124 @@ package rbadia.voidspace.main;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 
-import rbadia.voidspace.model.Ship;
+import rbadia.voidspace.perf.PerfStats;
+import rbadia.voidspace.simulation.InputSnapshot;
 
 /**
  * Handles user input events.
+ * <p>
+ * Key events arrive on the AWT event thread and are only queued there, with the time they arrived.
+ * The game loop thread applies them at the start of each simulation step with {@link #pollInput()},
+ * so input never changes the game while the game loop is updating or drawing it.
  */
 public class InputHandler implements KeyListener{
-	private boolean leftIsPressed;
-	private boolean rightIsPressed;
-	private boolean downIsPressed;
-	private boolean upIsPressed;
-	private boolean spaceIsPressed;
-	private boolean shiftIsPressed;
-	
-	private long lastBulletTime;
-	
+	// more key events than can ever arrive between two steps
+	private static final int QUEUE_CAPACITY = 256;
+
+	private final InputEventQueue events = new InputEventQueue(QUEUE_CAPACITY);
+
+	// controls held down, and controls pressed since the last step even if already released again;
+	// only used by the game loop thread
+	private int heldControls;
+	private int pressedControls;
+
 	private GameLogic gameLogic;
-	
+	private PerfStats perf;
+
 	/**
 	 * Create a new input handler
 	 * @param gameLogic the game logic handler
 	 */
 	public InputHandler(GameLogic gameLogic){
 		this.gameLogic = gameLogic;
+		this.perf = gameLogic.getSimulation().getPerfStats();
 	}
-	
+
 	/**
-	 * Handle user input after screen update.
-	 * @param gameScreen he game screen
+	 * Applies the key events received since the last call, and returns the state of the player's controls
+	 * for the next simulation step. A control pressed and released between two steps still counts as
+	 * pressed for one step, and pressing space also asks for a new game for one step; the simulation only
+	 * starts one on the title screen. Should be called by the game loop thread at the start of each step.
+	 * @return the current input snapshot
 	 */
-	public void handleInput(GameScreen gameScreen){
-		GameStatus status = gameLogic.getStatus();
-		if(!status.isGameOver() && !status.isNewShip() && !status.isGameStarting()){
-			// fire bullet if space is pressed
-			if(spaceIsPressed){
-				// fire only up to 8 bullets per second
-				long currentTime = System.currentTimeMillis();
-				if((currentTime - lastBulletTime) > 1000/8){
-					lastBulletTime = currentTime;
-					gameLogic.fireBullet();
-				}
-			}
-
-			Ship ship = gameLogic.getShip();
-			
-			if(shiftIsPressed){
-				ship.setSpeed(ship.getDefaultSpeed() * 2);
-			}
-
-			if(upIsPressed){
-				moveShipUp(ship);
-			}
-
-			if(downIsPressed){
-				moveShipDown(ship, gameScreen.getHeight());
-			}
-
-			if(leftIsPressed){
-				moveShipLeft(ship);
-			}
-
-			if(rightIsPressed){
-				moveShipRight(ship, gameScreen.getWidth());
-			}
-		}
+	public InputSnapshot pollInput(){
+		pressedControls = 0;
+		events.drain(eventHandler);
+		return InputSnapshot.of(heldControls | pressedControls);
 	}
 
 	/**
-	 * Move the ship up
-	 * @param ship the ship
+	 * Applies each queued key event, and records how long it waited for the simulation.
 	 */
-	private void moveShipUp(Ship ship){
-		if(ship.getY() - ship.getSpeed() >= 0){
-			ship.translate(0, -ship.getSpeed());
+	private final InputEventQueue.Handler eventHandler = new InputEventQueue.Handler(){
+		public void event(int keyCode, boolean pressed, long time) {
+			if(pressed){
+				handleKeyPressed(keyCode);
+			}
+			else{
+				handleKeyReleased(keyCode);
+			}
+			perf.record(PerfStats.Phase.INPUT, time);
 		}
-	}
+	};
 
 	/**
-	 * Move the ship down
-	 * @param ship the ship
+	 * Returns the control bit of a key.
+	 * @param keyCode the key code
+	 * @return the control bit from {@link InputSnapshot}, or 0 if the key is not a control
 	 */
-	private void moveShipDown(Ship ship, int screenHeight){
-		if(ship.getY() + ship.getSpeed() + ship.height < screenHeight){
-			ship.translate(0, ship.getSpeed());
+	private static int control(int keyCode){
+		switch(keyCode){
+		case KeyEvent.VK_UP:
+			return InputSnapshot.UP;
+		case KeyEvent.VK_DOWN:
+			return InputSnapshot.DOWN;
+		case KeyEvent.VK_LEFT:
+			return InputSnapshot.LEFT;
+		case KeyEvent.VK_RIGHT:
+			return InputSnapshot.RIGHT;
+		case KeyEvent.VK_SPACE:
+			return InputSnapshot.FIRE;
+		case KeyEvent.VK_SHIFT:
+			return InputSnapshot.BOOST;
 		}
+		return 0;
 	}
-	
+
 	/**
-	 * Move the ship left
-	 * @param ship the ship
+	 * Apply a key press. Runs on the game loop thread.
+	 * @param keyCode the key code
 	 */
-	private void moveShipLeft(Ship ship){
-		if(ship.getX() - ship.getSpeed() >= 0){
-			ship.translate(-ship.getSpeed(), 0);
+	private void handleKeyPressed(int keyCode){
+		if(keyCode == KeyEvent.VK_SPACE){
+			// new game, if the title screen is showing
+			pressedControls |= InputSnapshot.START;
 		}
+		heldControls |= control(keyCode);
+		pressedControls |= control(keyCode);
 	}
-	
+
 	/**
-	 * Move the ship right
-	 * @param ship the ship
+	 * Apply a key release. Runs on the game loop thread.
+	 * @param keyCode the key code
 	 */
-	private void moveShipRight(Ship ship, int screenWidth){
-		if(ship.getX() + ship.getSpeed() + ship.width < screenWidth){
-			ship.translate(ship.getSpeed(), 0);
-		}
+	private void handleKeyReleased(int keyCode){
+		heldControls &= ~control(keyCode);
 	}
-	
+
 	/**
 	 * Handle a key input event.
 	 */
 	public void keyPressed(KeyEvent e) {
 		switch(e.getKeyCode()){
-		case KeyEvent.VK_UP:
-			this.upIsPressed = true;
-			break;
-		case KeyEvent.VK_DOWN:
-			this.downIsPressed = true;
-			break;
-		case KeyEvent.VK_LEFT:
-			this.leftIsPressed = true;
-			break;
-		case KeyEvent.VK_RIGHT:
-			this.rightIsPressed = true;
-			break;
-		case KeyEvent.VK_SPACE:
-			GameStatus status = gameLogic.getStatus();
-			if(!status.isGameStarted() && !status.isGameOver() && !status.isGameStarting()){
-				// new game
-				lastBulletTime = System.currentTimeMillis();
-				leftIsPressed = false;
-				rightIsPressed = false;
-				downIsPressed = false;
-				upIsPressed = false;
-				spaceIsPressed = false;
-				
-				gameLogic.newGame();
-			}
-			else{
-				this.spaceIsPressed = true;
-			}
-			break;
-		case KeyEvent.VK_SHIFT:
-			this.shiftIsPressed = true;
-			break;
 		case KeyEvent.VK_ESCAPE:
 			System.exit(1);
 			break;
+		case KeyEvent.VK_F3:
+			gameLogic.getGameScreen().togglePerfOverlay();
+			break;
+		default:
+			events.offer(e.getKeyCode(), true, System.nanoTime());
 		}
 		e.consume();
 	}
@@ -157,28 +129,7 @@ public class InputHandler implements KeyListener{
 	 * Handle a key release event.
 	 */
 	public void keyReleased(KeyEvent e) {
-		switch(e.getKeyCode()){
-		case KeyEvent.VK_UP:
-			this.upIsPressed = false;
-			break;
-		case KeyEvent.VK_DOWN:
-			this.downIsPressed = false;
-			break;
-		case KeyEvent.VK_LEFT:
-			this.leftIsPressed = false;
-			break;
-		case KeyEvent.VK_RIGHT:
-			this.rightIsPressed = false;
-			break;
-		case KeyEvent.VK_SPACE:
-			this.spaceIsPressed = false;
-			break;
-		case KeyEvent.VK_SHIFT:
-			this.shiftIsPressed = false;
-			Ship ship = gameLogic.getShip(); 
-			ship.setSpeed(ship.getDefaultSpeed());
-			break;
-		}
+		events.offer(e.getKeyCode(), false, System.nanoTime());
 		e.consume();
 	}
 
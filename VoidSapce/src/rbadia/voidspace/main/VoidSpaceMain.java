@@ -1,7 +1,15 @@
 package rbadia.voidspace.main;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
 import javax.swing.JFrame;
 
+import rbadia.voidspace.graphics.Starfield;
+import rbadia.voidspace.replay.SessionRecorder;
+import rbadia.voidspace.simulation.LevelTable;
+
 /**
  * Main game class. Starts the game.
  */
@@ -18,11 +26,39 @@ public class VoidSpaceMain {
 		// get game screen
         GameScreen gameScreen = frame.getGameScreen();
 		
-		// init game logic handler
-		GameLogic gameLogic = new GameLogic(gameScreen);
+		// init game logic handler; -Dvoidspace.seed=N replays the same asteroids and enemies every session
+		Long seed = Long.getLong("voidspace.seed");
+		GameLogic gameLogic = new GameLogic(gameScreen, seed != null? seed : new Random().nextLong());
+		
+		// stress mode: -Dvoidspace.asteroids=N sets the size of the asteroid field
+		gameLogic.getSimulation().setAsteroidCount(Integer.getInteger("voidspace.asteroids", 6));
+
+		// -Dvoidspace.levels=chaos.txt plays the chaos mode levels, or the levels of a file
+		String levels = System.getProperty("voidspace.levels");
+		if(levels != null){
+			try{
+				gameLogic.getSimulation().setLevelTable(LevelTable.load(levels));
+			}
+			catch(IOException e){
+				System.err.println("Using the default levels: " + e.getMessage());
+			}
+		}
 		
+		// -Dvoidspace.perfCsv=file writes the performance statistics to a CSV file on exit
+		String perfCsv = System.getProperty("voidspace.perfCsv");
+		if(perfCsv != null){
+			gameLogic.getSimulation().getPerfStats().writeCsvOnExit(new File(perfCsv));
+		}
+
 		// pass some variables to game screen
         gameScreen.setGameLogic(gameLogic);
+        gameScreen.setStarCount(Integer.getInteger("voidspace.stars", Starfield.DEFAULT_STAR_COUNT));
+
+        // -Dvoidspace.renderer=canvas draws through a buffer strategy instead of Swing repaints;
+        // -Dvoidspace.buffers=2|3 selects double or triple buffering
+        if("canvas".equals(System.getProperty("voidspace.renderer"))){
+        	gameScreen.setActiveRendering(Integer.getInteger("voidspace.buffers", 2));
+        }
         
 		// init input handler
         InputHandler inputHandler = new InputHandler(gameLogic);
@@ -31,8 +67,25 @@ public class VoidSpaceMain {
         // show main frame
 		frame.setVisible(true);
 		
-		// init main game loop
-		new Thread(new GameLoop(gameScreen, gameLogic, inputHandler)).start();
+		// init main game loop; -Dvoidspace.tickRate=60|120|240 selects the fixed-step loop
+		int tickRate = Integer.getInteger("voidspace.tickRate", 0);
+		GameLoop gameLoop = tickRate > 0?
+				new GameLoop(gameScreen, gameLogic, inputHandler, tickRate) :
+				new GameLoop(gameScreen, gameLogic, inputHandler);
+
+		// -Dvoidspace.record=file records the session, to be replayed with ReplayMain
+		String record = System.getProperty("voidspace.record");
+		if(record != null){
+			try{
+				SessionRecorder recorder = new SessionRecorder(new File(record), gameLogic.getSimulation(), gameLoop.getTickNanos());
+				recorder.closeOnExit();
+				gameLoop.setRecorder(recorder);
+			}
+			catch(IOException e){
+				System.err.println("Recording disabled: " + e);
+			}
+		}
+		new Thread(gameLoop).start();
 	}
 
 
@@ -1,37 +1,54 @@
 package rbadia.voidspace.model;
 
 import java.awt.Rectangle;
-import java.util.Random;
-
-import rbadia.voidspace.main.GameScreen;
 
+/**
+ * Read-only view of one asteroid kept in an {@link EntityStore}.
+ * A single view can be pointed at each asteroid in turn with {@link #at(int)}, so drawing
+ * code can keep using the rectangle API without one object per asteroid.
+ */
 public class Asteroid extends Rectangle {
 	private static final long serialVersionUID = 1L;
-	
+
 	public static final int DEFAULT_SPEED = 4;
-	
-	private int asteroidWidth = 32;
-	private int asteroidHeight = 32;
-	private int speed = DEFAULT_SPEED;
+	public static final int ASTEROID_WIDTH = 32;
+	public static final int ASTEROID_HEIGHT = 32;
+
+	private final EntityStore store;
+	private int index = -1;
+
+	/**
+	 * Creates a new view over the asteroids in the given store
+	 * @param store the asteroid store
+	 */
+	public Asteroid(EntityStore store){
+		this.store = store;
+	}
+
+	/**
+	 * Points this view at the given asteroid and copies its current bounds.
+	 * @param index the asteroid index in the store
+	 * @return this view
+	 */
+	public Asteroid at(int index){
+		this.index = index;
+		this.setBounds(store.getX(index), store.getY(index), store.getWidth(index), store.getHeight(index));
+		return this;
+	}
 
-	private Random rand = new Random();
-	
 	/**
-	 * Crates a new asteroid at a random x location at the top of the screen 
-	 * @param screen the game screen
+	 * Returns the index of the asteroid this view points at.
+	 * @return the asteroid index in the store
 	 */
-	public Asteroid(GameScreen screen){
-		this.setLocation(
-        		rand.nextInt(screen.getWidth() - asteroidWidth),
-        		0);
-		this.setSize(asteroidWidth, asteroidHeight);
+	public int getIndex() {
+		return index;
 	}
-	
+
 	public int getAsteroidWidth() {
-		return asteroidWidth;
+		return ASTEROID_WIDTH;
 	}
 	public int getAsteroidHeight() {
-		return asteroidHeight;
+		return ASTEROID_HEIGHT;
 	}
 
 	/**
@@ -39,17 +56,25 @@ public class Asteroid extends Rectangle {
 	 * @return the current asteroid speed
 	 */
 	public int getSpeed() {
-		return speed;
+		return store.getSpeed(index);
 	}
-	
+
 	/**
-	 * Set the current asteroid speed
-	 * @param speed the speed to set
+	 * Returns the velocity of the asteroid along the x axis.
+	 * @return the velocity, in 16.16 fixed point pixels per 1/60th of a second
 	 */
-	public void setSpeed(int speed) {
-		this.speed = speed;
+	public int getVelocityX() {
+		return store.getVelocityX(index);
 	}
-	
+
+	/**
+	 * Returns the velocity of the asteroid along the y axis.
+	 * @return the velocity, in 16.16 fixed point pixels per 1/60th of a second
+	 */
+	public int getVelocityY() {
+		return store.getVelocityY(index);
+	}
+
 	/**
 	 * Returns the default asteroid speed.
 	 * @return the default asteroid speed
@@ -6,24 +6,35 @@ import java.awt.Rectangle;
  */
 public class Bullet extends Rectangle {
 	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_SPEED = 12;
 	
 	private int bulletWidth = 8;
 	private int bulletHeight = 8;
-	private int speed = 12;
+	private int speed = DEFAULT_SPEED;
 
 	/**
-	 * Creates a new bullet above the ship, centered on it
-	 * @param ship
+	 * Creates a new bullet, to be placed later with one of the place methods.
 	 */
-	public Bullet(Ship ship) {
+	public Bullet() {
+		this.setSize(bulletWidth, bulletHeight);
+	}
+
+	/**
+	 * Moves the bullet above the ship, centered on it
+	 * @param ship the ship firing the bullet
+	 */
+	public void placeAbove(Ship ship) {
 		this.setLocation(ship.x + ship.width/2 - bulletWidth/2,
 				ship.y - bulletHeight);
-		this.setSize(bulletWidth, bulletHeight);
 	}
 
-	public Bullet(EnemyShip enemyShip){
+	/**
+	 * Moves the bullet to the enemy ship, centered on it
+	 * @param enemyShip the enemy ship firing the bullet
+	 */
+	public void placeAt(EnemyShip enemyShip) {
 		this.setLocation(enemyShip.x + enemyShip.width/2 - bulletWidth/2,enemyShip.y - bulletHeight);
-		this.setSize(bulletWidth,bulletHeight);
 	}
 
 	/**
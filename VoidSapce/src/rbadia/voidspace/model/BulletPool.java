@@ -0,0 +1,88 @@
+package rbadia.voidspace.model;
+
+/**
+ * Fixed-size pool of bullets. All bullets are created up front and reused, so firing
+ * and removing bullets never allocates.
+ * <p>
+ * The bullets in use are kept at the start of the pool, from index 0 to {@link #size()} - 1.
+ * Removing a bullet moves the last bullet in use into its place, so indexes of other bullets may change.
+ */
+public class BulletPool {
+	private final Bullet[] bullets;
+	private int size;
+	private long exhaustedCount;
+
+	/**
+	 * Creates a new pool.
+	 * @param capacity the most bullets that can be in use at once
+	 */
+	public BulletPool(int capacity){
+		bullets = new Bullet[capacity];
+		for(int i=0; i<capacity; i++){
+			bullets[i] = new Bullet();
+		}
+	}
+
+	/**
+	 * Takes a bullet from the pool. The caller should place it, e.g. with {@link Bullet#placeAbove(Ship)}.
+	 * @return the bullet, or null if all bullets are in use
+	 */
+	public Bullet acquire(){
+		if(size == bullets.length){
+			exhaustedCount++;
+			return null;
+		}
+		return bullets[size++];
+	}
+
+	/**
+	 * Returns a bullet to the pool. The last bullet in use takes its index.
+	 * @param i the index of the bullet
+	 */
+	public void release(int i){
+		int last = --size;
+		Bullet bullet = bullets[i];
+		bullets[i] = bullets[last];
+		bullets[last] = bullet;
+	}
+
+	/**
+	 * Returns all bullets to the pool.
+	 */
+	public void clear(){
+		size = 0;
+	}
+
+	/**
+	 * Returns a bullet in use.
+	 * @param i the index of the bullet, from 0 to {@link #size()} - 1
+	 * @return the bullet
+	 */
+	public Bullet get(int i){
+		return bullets[i];
+	}
+
+	/**
+	 * Returns the number of bullets in use.
+	 * @return the number of bullets in use
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns the most bullets that can be in use at once.
+	 * @return the pool capacity
+	 */
+	public int getCapacity(){
+		return bullets.length;
+	}
+
+	/**
+	 * Returns how many times a bullet was requested while all bullets were in use.
+	 * @return the number of failed requests
+	 */
+	public long getExhaustedCount(){
+		return exhaustedCount;
+	}
+}
@@ -0,0 +1,71 @@
+package rbadia.voidspace.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs an update over a range of entity indexes, serially for a few entities, or split into chunks
+ * updated in parallel on the common {@link ForkJoinPool} for many.
+ * <p>
+ * The update of each entity must only read shared state and change the entity's own slots, so that
+ * the chunks can run in any order, on any thread, with the same result as a serial pass.
+ */
+public abstract class ChunkedUpdate {
+	private final int parallelThreshold;
+	private final int chunkSize;
+
+	/**
+	 * Creates a new update.
+	 * @param parallelThreshold the least number of entities that are updated in parallel
+	 * @param chunkSize the most entities a parallel task updates
+	 */
+	protected ChunkedUpdate(int parallelThreshold, int chunkSize){
+		this.parallelThreshold = parallelThreshold;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Updates the entities from 0 to the given count, and returns once they are all updated.
+	 * @param count the number of entities
+	 */
+	public void run(int count){
+		if(count >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1){
+			ForkJoinPool.commonPool().invoke(new Task(0, count));
+		}
+		else{
+			update(0, count);
+		}
+	}
+
+	/**
+	 * Updates the entities from one index, inclusive, to another, exclusive.
+	 * @param from the first entity index
+	 * @param to the entity index after the last one
+	 */
+	protected abstract void update(int from, int to);
+
+	/**
+	 * Updates a range of entities in a parallel update, splitting it in halves down to the chunk size.
+	 */
+	private class Task extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		Task(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= chunkSize){
+				update(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new Task(from, middle), new Task(middle, to));
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package rbadia.voidspace.model;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The solid pixels of a sprite, one bit per pixel, for pixel-accurate collision checks.
+ * <p>
+ * Each row is packed into longs, the leftmost pixel in the lowest bit of the first long. Two masks
+ * overlap if any pair of rows, lined up by the sprites' positions, has a bit set in both; a row of a
+ * 32 pixel wide sprite is a single long, so checking two sprites takes a few dozen long operations.
+ * The check is meant to run only after the bounding boxes are known to intersect.
+ */
+public class CollisionMask {
+	/**
+	 * Least alpha, out of 255, that a pixel needs to be solid.
+	 */
+	public static final int DEFAULT_ALPHA_THRESHOLD = 128;
+
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+	private final long[] bits;
+
+	private CollisionMask(int width, int height){
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) >>> 6;
+		this.bits = new long[wordsPerRow * height];
+	}
+
+	/**
+	 * Creates the mask of an image: its pixels whose alpha is at least the threshold are solid.
+	 * @param image the sprite image
+	 * @param alphaThreshold the least alpha, from 0 to 255, of a solid pixel
+	 * @return the mask
+	 */
+	public static CollisionMask fromImage(BufferedImage image, int alphaThreshold){
+		CollisionMask mask = new CollisionMask(image.getWidth(), image.getHeight());
+		int[] row = new int[mask.width];
+		for(int y=0; y<mask.height; y++){
+			image.getRGB(0, y, mask.width, 1, row, 0, mask.width);
+			for(int x=0; x<mask.width; x++){
+				if((row[x] >>> 24) >= alphaThreshold){
+					mask.bits[y * mask.wordsPerRow + (x >>> 6)] |= 1L << x;
+				}
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Creates a mask with all pixels solid, for entities that are as solid as their bounding box.
+	 * @param width the mask width
+	 * @param height the mask height
+	 * @return the mask
+	 */
+	public static CollisionMask solid(int width, int height){
+		CollisionMask mask = new CollisionMask(width, height);
+		for(int y=0; y<height; y++){
+			for(int x=0; x<width; x++){
+				mask.bits[y * mask.wordsPerRow + (x >>> 6)] |= 1L << x;
+			}
+		}
+		return mask;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Indicates if a pixel is solid.
+	 * @param x the pixel x coordinate
+	 * @param y the pixel y coordinate
+	 * @return if the pixel is solid; pixels outside the mask are not
+	 */
+	public boolean isSolid(int x, int y){
+		if(x < 0 || y < 0 || x >= width || y >= height){
+			return false;
+		}
+		return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+	}
+
+	/**
+	 * Returns the number of solid pixels.
+	 * @return the number of solid pixels
+	 */
+	public int getSolidCount(){
+		int count = 0;
+		for(long word : bits){
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Indicates if this mask, placed at the given location, has a solid pixel in the same place as
+	 * another mask placed at its location.
+	 * @param x the x coordinate of this mask
+	 * @param y the y coordinate of this mask
+	 * @param other the other mask
+	 * @param otherX the x coordinate of the other mask
+	 * @param otherY the y coordinate of the other mask
+	 * @return if the masks overlap
+	 */
+	public boolean overlaps(int x, int y, CollisionMask other, int otherX, int otherY){
+		int top = Math.max(y, otherY);
+		int bottom = Math.min(y + height, otherY + other.height);
+		if(top >= bottom || Math.max(x, otherX) >= Math.min(x + width, otherX + other.width)){
+			return false;
+		}
+		// where the other mask's columns start in this mask's columns
+		int dx = otherX - x;
+		int wordShift = Math.floorDiv(dx, 64);
+		int bitShift = Math.floorMod(dx, 64);
+		for(int row=top; row<bottom; row++){
+			int base = (row - y) * wordsPerRow;
+			int otherBase = (row - otherY) * other.wordsPerRow;
+			for(int k=0; k<other.wordsPerRow; k++){
+				long word = other.bits[otherBase + k];
+				if(word == 0){
+					continue;
+				}
+				// the other word covers this mask's words w and, unless it is aligned, w + 1
+				int w = k + wordShift;
+				if(w >= 0 && w < wordsPerRow && (bits[base + w] & (word << bitShift)) != 0){
+					return true;
+				}
+				if(bitShift != 0 && w + 1 >= 0 && w + 1 < wordsPerRow
+						&& (bits[base + w + 1] & (word >>> (64 - bitShift))) != 0){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -1,9 +1,6 @@
 package rbadia.voidspace.model;
 
-import rbadia.voidspace.main.GameScreen;
-
 import java.awt.Rectangle;
-import java.util.Random;
 
 /**
  * Represents a ship/space craft.
@@ -19,16 +16,10 @@ public class EnemyShip extends Rectangle {
     private int enemyShipHeight = 25;
     private int speed = DEFAULT_SPEED;
 
-    private Random rand = new Random();
-
     /**
-     * Creates a new ship at the default initial location.
-     * @param screen the game screen
+     * Creates a new ship, to be placed later, e.g. by an enemy fleet.
      */
-    public EnemyShip(GameScreen screen){
-        this.setLocation(
-                rand.nextInt(screen.getWidth() - enemyShipWidth),
-                5);
+    public EnemyShip(){
         this.setSize(enemyShipWidth, enemyShipHeight);
     }
 
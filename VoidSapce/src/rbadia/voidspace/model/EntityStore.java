@@ -0,0 +1,316 @@
+package rbadia.voidspace.model;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Stores many entities of one kind as parallel arrays of primitive values (structure of arrays),
+ * instead of one object per entity. Entities are identified by their index, from 0 to {@link #size()} - 1.
+ * <p>
+ * Each entity also has an alive flag, kept in a bit set. Dead entities keep their slot until
+ * {@link #removeDead()} is called, so indexes stay stable while a step is in progress.
+ * <p>
+ * Entities also have a velocity, in 16.16 fixed point pixels per 1/60th of a second, that
+ * {@link #integrate(int, int, int, int)} moves them all by in one pass. The fraction of a pixel moved so far is kept
+ * per entity, so slow and diagonal velocities move as smoothly as whole-pixel ones. Large stores are
+ * integrated in parallel chunks, see {@link ChunkedUpdate}.
+ */
+public class EntityStore {
+	/**
+	 * Number of fraction bits of velocities: a velocity of {@code 1 << FIXED_SHIFT} is one pixel.
+	 */
+	public static final int FIXED_SHIFT = 16;
+
+	private static final int FRACTION_MASK = (1 << FIXED_SHIFT) - 1;
+
+	// stores this large are integrated in parallel, in chunks of this many entities; a chunk's slots
+	// of the arrays integrate touches take about 28 KB, so a chunk stays in the cache of its core
+	private static final int PARALLEL_THRESHOLD = 8192;
+	private static final int CHUNK_SIZE = 1024;
+
+	private int[] x;
+	private int[] y;
+	private int[] width;
+	private int[] height;
+	private int[] speed;
+	private int[] vx;
+	private int[] vy;
+	// the fraction of a pixel the entity has moved beyond x and y, in the low FIXED_SHIFT bits
+	private int[] fractionX;
+	private int[] fractionY;
+	private long[] alive;
+	private int size;
+
+	// arguments of the integration in progress, read by the integrator
+	private int steps;
+	private int phase;
+	private int minX;
+	private int maxX;
+	private final ChunkedUpdate integrator = new ChunkedUpdate(PARALLEL_THRESHOLD, CHUNK_SIZE){
+		@Override
+		protected void update(int from, int to) {
+			integrate(from, to);
+		}
+	};
+
+	/**
+	 * Creates a new, empty entity store.
+	 * @param capacity the number of entities to reserve room for
+	 */
+	public EntityStore(int capacity){
+		capacity = Math.max(capacity, 1);
+		x = new int[capacity];
+		y = new int[capacity];
+		width = new int[capacity];
+		height = new int[capacity];
+		speed = new int[capacity];
+		vx = new int[capacity];
+		vy = new int[capacity];
+		fractionX = new int[capacity];
+		fractionY = new int[capacity];
+		alive = new long[(capacity + 63) >>> 6];
+	}
+
+	/**
+	 * Adds a new, alive entity to the store, moving straight down at its speed.
+	 * @param x the entity x coordinate
+	 * @param y the entity y coordinate
+	 * @param width the entity width
+	 * @param height the entity height
+	 * @param speed the entity speed, in pixels per 1/60th of a second
+	 * @return the index of the new entity
+	 */
+	public int add(int x, int y, int width, int height, int speed){
+		if(size == this.x.length){
+			grow(size * 2);
+		}
+		int i = size++;
+		this.x[i] = x;
+		this.y[i] = y;
+		this.width[i] = width;
+		this.height[i] = height;
+		this.speed[i] = speed;
+		this.vx[i] = 0;
+		this.vy[i] = speed << FIXED_SHIFT;
+		this.fractionX[i] = 0;
+		this.fractionY[i] = 0;
+		revive(i);
+		return i;
+	}
+
+	/**
+	 * Removes all entities.
+	 */
+	public void clear(){
+		Arrays.fill(alive, 0, (size + 63) >>> 6, 0L);
+		size = 0;
+	}
+
+	/**
+	 * Removes the dead entities. The last entity is moved into the slot of each removed one,
+	 * so entity indexes change.
+	 */
+	public void removeDead(){
+		int i = 0;
+		while(i < size){
+			if(isAlive(i)){
+				i++;
+				continue;
+			}
+			int last = --size;
+			if(i != last){
+				x[i] = x[last];
+				y[i] = y[last];
+				width[i] = width[last];
+				height[i] = height[last];
+				speed[i] = speed[last];
+				vx[i] = vx[last];
+				vy[i] = vy[last];
+				fractionX[i] = fractionX[last];
+				fractionY[i] = fractionY[last];
+				if(isAlive(last)){
+					revive(i);
+				}
+			}
+			kill(last);
+		}
+	}
+
+	/**
+	 * Returns the number of entities, dead or alive.
+	 * @return the number of entities
+	 */
+	public int size(){
+		return size;
+	}
+
+	public int getX(int i){
+		return x[i];
+	}
+
+	public int getY(int i){
+		return y[i];
+	}
+
+	public int getWidth(int i){
+		return width[i];
+	}
+
+	public int getHeight(int i){
+		return height[i];
+	}
+
+	public int getSpeed(int i){
+		return speed[i];
+	}
+
+	public void setSpeed(int i, int speed){
+		this.speed[i] = speed;
+	}
+
+	/**
+	 * Returns the velocity of an entity along the x axis.
+	 * @param i the entity index
+	 * @return the velocity, in 16.16 fixed point pixels per 1/60th of a second
+	 */
+	public int getVelocityX(int i){
+		return vx[i];
+	}
+
+	/**
+	 * Returns the velocity of an entity along the y axis.
+	 * @param i the entity index
+	 * @return the velocity, in 16.16 fixed point pixels per 1/60th of a second
+	 */
+	public int getVelocityY(int i){
+		return vy[i];
+	}
+
+	/**
+	 * Sets the velocity of an entity.
+	 * @param i the entity index
+	 * @param vx the velocity along the x axis, in 16.16 fixed point pixels per 1/60th of a second
+	 * @param vy the velocity along the y axis, in 16.16 fixed point pixels per 1/60th of a second
+	 */
+	public void setVelocity(int i, int vx, int vy){
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+	}
+
+	/**
+	 * Moves all entities, dead or alive, by their velocity, and turns back the ones that have moved past
+	 * the sides of the play field: their velocity along the x axis is reversed, so they move back in on
+	 * the next step.
+	 * <p>
+	 * The velocity is spread over the steps that make up 1/60th of a second so that no distance is lost
+	 * to rounding: together they move by exactly the velocity, e.g. a velocity of 5 at 4 steps moves
+	 * 1, 1, 1 and then 2.
+	 * @param steps the number of steps that make up 1/60th of a second; each moves by a part of the velocity
+	 * @param phase which of those steps this is, from 0 to steps - 1
+	 * @param minX the left side of the play field
+	 * @param maxX the right side of the play field
+	 */
+	public void integrate(int steps, int phase, int minX, int maxX){
+		this.steps = steps;
+		this.phase = phase;
+		this.minX = minX;
+		this.maxX = maxX;
+		integrator.run(size);
+	}
+
+	/**
+	 * Integrates the entities from one index, inclusive, to another, exclusive.
+	 */
+	private void integrate(int from, int to){
+		for(int i=from; i<to; i++){
+			int fx = fractionX[i] + stepPart(vx[i]);
+			int fy = fractionY[i] + stepPart(vy[i]);
+			x[i] += fx >> FIXED_SHIFT;
+			y[i] += fy >> FIXED_SHIFT;
+			fractionX[i] = fx & FRACTION_MASK;
+			fractionY[i] = fy & FRACTION_MASK;
+			if((vx[i] < 0 && x[i] < minX) || (vx[i] > 0 && x[i] + width[i] > maxX)){
+				vx[i] = -vx[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the part of a velocity the current step moves by.
+	 */
+	private int stepPart(int velocity){
+		if(steps == 1){
+			return velocity;
+		}
+		return (int) (Math.floorDiv((long) velocity * (phase + 1), steps) - Math.floorDiv((long) velocity * phase, steps));
+	}
+
+	/**
+	 * Moves an entity to the given location.
+	 * @param i the entity index
+	 * @param x the new x coordinate
+	 * @param y the new y coordinate
+	 */
+	public void setLocation(int i, int x, int y){
+		this.x[i] = x;
+		this.y[i] = y;
+		this.fractionX[i] = 0;
+		this.fractionY[i] = 0;
+	}
+
+	/**
+	 * Moves an entity by the given distances.
+	 * @param i the entity index
+	 * @param dx the distance to move along the x axis
+	 * @param dy the distance to move along the y axis
+	 */
+	public void translate(int i, int dx, int dy){
+		x[i] += dx;
+		y[i] += dy;
+	}
+
+	/**
+	 * Indicates if an entity intersects the given rectangle, like {@link Rectangle#intersects(Rectangle)}.
+	 * @param i the entity index
+	 * @param r the rectangle
+	 * @return if the entity and the rectangle intersect
+	 */
+	public boolean intersects(int i, Rectangle r){
+		return r.width > 0 && r.height > 0 && width[i] > 0 && height[i] > 0
+				&& r.x < x[i] + width[i] && x[i] < r.x + r.width
+				&& r.y < y[i] + height[i] && y[i] < r.y + r.height;
+	}
+
+	public boolean isAlive(int i){
+		return (alive[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Marks an entity as dead; it keeps its slot until {@link #removeDead()}.
+	 * @param i the entity index
+	 */
+	public void kill(int i){
+		alive[i >>> 6] &= ~(1L << i);
+	}
+
+	/**
+	 * Marks an entity as alive again.
+	 * @param i the entity index
+	 */
+	public void revive(int i){
+		alive[i >>> 6] |= 1L << i;
+	}
+
+	private void grow(int capacity){
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		speed = Arrays.copyOf(speed, capacity);
+		vx = Arrays.copyOf(vx, capacity);
+		vy = Arrays.copyOf(vy, capacity);
+		fractionX = Arrays.copyOf(fractionX, capacity);
+		fractionY = Arrays.copyOf(fractionY, capacity);
+		alive = Arrays.copyOf(alive, (capacity + 63) >>> 6);
+	}
+}
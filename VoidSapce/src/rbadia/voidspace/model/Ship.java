@@ -2,8 +2,6 @@ package rbadia.voidspace.model;
 
 import java.awt.Rectangle;
 
-import rbadia.voidspace.main.GameScreen;
-
 /**
  * Represents a ship/space craft.
  *
@@ -20,11 +18,12 @@ public class Ship extends Rectangle {
 	
 	/**
 	 * Creates a new ship at the default initial location. 
-	 * @param screen the game screen
+	 * @param screenWidth the width of the game screen
+	 * @param screenHeight the height of the game screen
 	 */
-	public Ship(GameScreen screen){
-		this.setLocation((screen.getWidth() - shipWidth)/2,
-				screen.getHeight() - shipHeight - Y_OFFSET);
+	public Ship(int screenWidth, int screenHeight){
+		this.setLocation((screenWidth - shipWidth)/2,
+				screenHeight - shipHeight - Y_OFFSET);
 		this.setSize(shipWidth, shipHeight);
 	}
 	
@@ -0,0 +1,125 @@
+package rbadia.voidspace.perf;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations with a fixed relative precision, in the style of an HDR histogram.
+ * Values are counted in buckets that grow with the value, so a few kilobytes cover everything
+ * from single nanoseconds to minutes while keeping each value within about 1.6%.
+ * Recording a value never allocates.
+ */
+public class LatencyHistogram {
+	// sub-buckets per power of two; values below this are counted exactly
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// largest value counted, about 18 minutes in nanoseconds; larger values count as this
+	private static final int MAX_BITS = 40;
+	private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+	private final long[] counts = new long[(MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+	private long count;
+	private long total;
+	private long max;
+
+	/**
+	 * Counts a value.
+	 * @param value the value, e.g. a duration in nanoseconds
+	 */
+	public void record(long value){
+		value = Math.max(0, Math.min(MAX_VALUE, value));
+		counts[index(value)]++;
+		count++;
+		total += value;
+		if(value > max){
+			max = value;
+		}
+	}
+
+	/**
+	 * Adds all the values counted by another histogram to this one.
+	 * @param other the other histogram
+	 */
+	public void add(LatencyHistogram other){
+		for(int i=0; i<counts.length; i++){
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		total += other.total;
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	public void reset(){
+		Arrays.fill(counts, 0L);
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the mean of the counted values.
+	 * @return the mean, or 0 if there are no values
+	 */
+	public double getMean(){
+		return count == 0? 0 : (double) total / count;
+	}
+
+	/**
+	 * Returns the value that the given percentage of counted values are lower than or equal to.
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the value at the percentile, or 0 if there are no values
+	 */
+	public long getValueAtPercentile(double percentile){
+		if(percentile >= 100){
+			return max;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for(int i=0; i<counts.length; i++){
+			seen += counts[i];
+			if(seen >= target){
+				return Math.min(max, value(i));
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the bucket a value is counted in.
+	 * @param value the value, from 0 to {@link #MAX_VALUE}
+	 * @return the bucket index
+	 */
+	private static int index(long value){
+		if(value < SUB_BUCKETS){
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Returns the value a bucket stands for: the middle of the range of values counted in it.
+	 * @param index the bucket index
+	 * @return the bucket value
+	 */
+	private static long value(int index){
+		int bucket = index >>> SUB_BUCKET_BITS;
+		int subBucket = index & (SUB_BUCKETS - 1);
+		if(bucket == 0){
+			return subBucket;
+		}
+		int shift = bucket - 1;
+		return ((long) (subBucket + SUB_BUCKETS) << shift) + ((1L << shift) >>> 1);
+	}
+}
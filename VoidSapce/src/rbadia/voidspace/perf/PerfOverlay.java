@@ -0,0 +1,96 @@
+package rbadia.voidspace.perf;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.util.Locale;
+
+/**
+ * On-screen display of the performance statistics over the last few seconds.
+ * The text is rebuilt a few times per second, not every frame, so showing the overlay
+ * barely changes the numbers it shows.
+ */
+public class PerfOverlay {
+	private static final long REFRESH_NANOS = 250 * 1000000L;
+	private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+	private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+
+	private final PerfStats stats;
+	private volatile boolean visible;
+	private String[] lines = new String[0];
+	private long lastRefresh;
+
+	/**
+	 * Creates a new, hidden overlay.
+	 * @param stats the statistics to show
+	 */
+	public PerfOverlay(PerfStats stats){
+		this.stats = stats;
+	}
+
+	/**
+	 * Shows the overlay if it is hidden, or hides it if it is showing. May be called from any thread.
+	 */
+	public void toggle(){
+		visible = !visible;
+		lastRefresh = 0;
+	}
+
+	public boolean isVisible(){
+		return visible;
+	}
+
+	/**
+	 * Draws the overlay in the top left corner, if it is showing.
+	 * @param g2d the graphics context
+	 */
+	public void draw(Graphics2D g2d){
+		if(!visible){
+			return;
+		}
+		long now = System.nanoTime();
+		if(lastRefresh == 0 || now - lastRefresh >= REFRESH_NANOS){
+			lastRefresh = now;
+			refresh();
+		}
+
+		g2d.setFont(FONT);
+		FontMetrics fm = g2d.getFontMetrics();
+		int lineHeight = fm.getHeight();
+		int width = 0;
+		for(String line : lines){
+			width = Math.max(width, fm.stringWidth(line));
+		}
+		g2d.setPaint(BACKGROUND);
+		g2d.fillRect(4, 4, width + 8, lines.length * lineHeight + 8);
+		g2d.setPaint(Color.GREEN);
+		for(int i=0; i<lines.length; i++){
+			g2d.drawString(lines[i], 8, 8 + fm.getAscent() + i * lineHeight);
+		}
+	}
+
+	/**
+	 * Rebuilds the overlay text from the current statistics.
+	 */
+	private void refresh(){
+		PerfStats.Phase[] phases = PerfStats.Phase.values();
+		String[] text = new String[phases.length + 4];
+		double seconds = stats.getWindowNanos() / 1e9;
+		LatencyHistogram frames = stats.getWindow(PerfStats.Phase.FRAME);
+		text[0] = String.format(Locale.ROOT, "%.1f fps, last %.0f s", seconds > 0? frames.getCount() / seconds : 0, seconds);
+		text[1] = String.format(Locale.ROOT, "%-9s %8s %8s %8s", "us", "p50", "p99", "max");
+		for(int i=0; i<phases.length; i++){
+			LatencyHistogram h = stats.getWindow(phases[i]);
+			text[i + 2] = String.format(Locale.ROOT, "%-9s %8.1f %8.1f %8.1f", phases[i].name().toLowerCase(Locale.ROOT),
+					h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0, h.getMax() / 1000.0);
+		}
+		text[phases.length + 2] = String.format(Locale.ROOT, "entities %d  pairs %d (peak %d)",
+				stats.getLast(PerfStats.Counter.ENTITIES), stats.getLast(PerfStats.Counter.PAIRS),
+				stats.getPeak(PerfStats.Counter.PAIRS));
+		text[phases.length + 3] = String.format(Locale.ROOT, "gc %d (%d ms), last %d s: %d (%d ms)",
+				stats.getGcCount(), stats.getGcTimeMillis(), PerfStats.WINDOW_SECONDS,
+				stats.getWindowGcCount(), stats.getWindowGcTimeMillis());
+		lines = text;
+	}
+}
@@ -0,0 +1,375 @@
+package rbadia.voidspace.perf;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Performance statistics of a running game: how long each phase of a frame takes, how many
+ * entities and collision pairs each step handles, and how often the garbage collector ran.
+ * <p>
+ * Durations are kept both for the whole run and for the last {@link #WINDOW_SECONDS} seconds,
+ * in one histogram per second that is reused once it falls out of the window.
+ * Recording is cheap and does not allocate. Statistics should be recorded and read by the game loop thread;
+ * {@link #writeCsvOnExit(File)} hands the writing over to that thread too.
+ * <p>
+ * Runs nobody watches, e.g. batches of headless games, can use {@link #DISABLED}, which records nothing.
+ */
+public class PerfStats {
+
+	/**
+	 * Timed phases of a frame.
+	 */
+	public enum Phase {
+		/** Time from one drawn frame to the next. */
+		FRAME,
+		/** A whole simulation step. */
+		TICK,
+		/** Moving the entities during a step. */
+		MOVE,
+		/** Finding and handling collisions during a step. */
+		COLLISION,
+		/** Drawing and showing a frame, including the HUD. */
+		DRAW,
+		/** Updating the HUD. */
+		HUD,
+		/** Time from a key event arriving to the start of the step that applies it. */
+		INPUT
+	}
+
+	/**
+	 * Values counted once per simulation step.
+	 */
+	public enum Counter {
+		/** Entities taking part in collision checks. */
+		ENTITIES,
+		/** Candidate collision pairs found by the broadphase. */
+		PAIRS
+	}
+
+	/**
+	 * Number of seconds the recent statistics cover.
+	 */
+	public static final int WINDOW_SECONDS = 10;
+	private static final long SLOT_NANOS = 1000000000L;
+
+	private static final int PHASES = Phase.values().length;
+	private static final int COUNTERS = Counter.values().length;
+	// longest time the shutdown hook waits for the recording thread to write the CSV file
+	private static final long EXIT_CSV_WAIT_MILLIS = 1000;
+
+	/**
+	 * Statistics that record nothing and always stay empty. They allocate no histograms of their own and
+	 * can be shared by any number of threads.
+	 */
+	public static final PerfStats DISABLED = new PerfStats(false);
+
+	private final boolean enabled;
+	private final LatencyHistogram[] totals = new LatencyHistogram[PHASES];
+	private final LatencyHistogram[][] slots = new LatencyHistogram[PHASES][WINDOW_SECONDS];
+	private final LatencyHistogram window = new LatencyHistogram();
+	private final long startTime;
+	private int slot;
+	private long slotStart;
+
+	private final long[] counterLast = new long[COUNTERS];
+	private final long[] counterPeak = new long[COUNTERS];
+	private final long[] counterTotal = new long[COUNTERS];
+	private final long[] counterSamples = new long[COUNTERS];
+
+	private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+	private final long gcCountAtStart;
+	private final long gcTimeAtStart;
+	// collector totals at the start of each slot
+	private final long[] gcCountAtSlot = new long[WINDOW_SECONDS];
+	private final long[] gcTimeAtSlot = new long[WINDOW_SECONDS];
+	// CSV file the shutdown hook waits for the recording thread to write, if any
+	private volatile ExitCsv exitCsv;
+
+	/**
+	 * Creates new, empty statistics.
+	 */
+	public PerfStats(){
+		this(true);
+	}
+
+	private PerfStats(boolean enabled){
+		this.enabled = enabled;
+		for(int p=0; p<PHASES; p++){
+			// disabled statistics share the one empty window histogram
+			totals[p] = enabled? new LatencyHistogram() : window;
+			for(int s=0; s<WINDOW_SECONDS; s++){
+				slots[p][s] = enabled? new LatencyHistogram() : window;
+			}
+		}
+		startTime = System.nanoTime();
+		slotStart = startTime;
+		gcCountAtStart = gcCount();
+		gcTimeAtStart = gcTime();
+		for(int s=0; s<WINDOW_SECONDS; s++){
+			gcCountAtSlot[s] = gcCountAtStart;
+			gcTimeAtSlot[s] = gcTimeAtStart;
+		}
+	}
+
+	/**
+	 * Records the duration of a phase, from the given start time until now.
+	 * @param phase the phase
+	 * @param startNanos when the phase started, from {@link System#nanoTime()}
+	 * @return the current time, which can be used as the start of the next phase
+	 */
+	public long record(Phase phase, long startNanos){
+		long now = System.nanoTime();
+		if(!enabled){
+			return now;
+		}
+		ExitCsv pending = exitCsv;
+		if(pending != null){
+			pending.write();
+		}
+		if(now - slotStart >= SLOT_NANOS){
+			rotate(now);
+		}
+		long duration = now - startNanos;
+		totals[phase.ordinal()].record(duration);
+		slots[phase.ordinal()][slot].record(duration);
+		return now;
+	}
+
+	/**
+	 * Records the value of a counter for the current step.
+	 * @param counter the counter
+	 * @param value the value
+	 */
+	public void count(Counter counter, long value){
+		if(!enabled){
+			return;
+		}
+		int c = counter.ordinal();
+		counterLast[c] = value;
+		counterPeak[c] = Math.max(counterPeak[c], value);
+		counterTotal[c] += value;
+		counterSamples[c]++;
+	}
+
+	/**
+	 * Starts a new one-second slot, dropping the oldest one from the window.
+	 * @param now the current time
+	 */
+	private void rotate(long now){
+		long elapsedSlots = (now - slotStart) / SLOT_NANOS;
+		if(elapsedSlots >= WINDOW_SECONDS){
+			elapsedSlots = WINDOW_SECONDS;
+			slotStart = now;
+		}
+		else{
+			slotStart += elapsedSlots * SLOT_NANOS;
+		}
+		long gcCount = gcCount();
+		long gcTime = gcTime();
+		for(int i=0; i<elapsedSlots; i++){
+			slot = (slot + 1) % WINDOW_SECONDS;
+			for(int p=0; p<PHASES; p++){
+				slots[p][slot].reset();
+			}
+			gcCountAtSlot[slot] = gcCount;
+			gcTimeAtSlot[slot] = gcTime;
+		}
+	}
+
+	/**
+	 * Returns the durations of a phase over the last {@link #WINDOW_SECONDS} seconds.
+	 * The returned histogram is reused by the next call.
+	 * @param phase the phase
+	 * @return the recent durations, in nanoseconds
+	 */
+	public LatencyHistogram getWindow(Phase phase){
+		if(!enabled){
+			return window;
+		}
+		window.reset();
+		for(int s=0; s<WINDOW_SECONDS; s++){
+			window.add(slots[phase.ordinal()][s]);
+		}
+		return window;
+	}
+
+	/**
+	 * Returns the durations of a phase since the statistics were created.
+	 * @param phase the phase
+	 * @return all durations, in nanoseconds
+	 */
+	public LatencyHistogram getTotal(Phase phase){
+		return totals[phase.ordinal()];
+	}
+
+	/**
+	 * Returns how much time the recent statistics cover; less than the full window right after starting.
+	 * @return the covered time, in nanoseconds
+	 */
+	public long getWindowNanos(){
+		long now = System.nanoTime();
+		return Math.min(now - startTime, (WINDOW_SECONDS - 1) * SLOT_NANOS + (now - slotStart));
+	}
+
+	public long getLast(Counter counter){
+		return counterLast[counter.ordinal()];
+	}
+
+	public long getPeak(Counter counter){
+		return counterPeak[counter.ordinal()];
+	}
+
+	/**
+	 * Returns the mean value of a counter over all steps.
+	 * @param counter the counter
+	 * @return the mean value, or 0 if nothing was counted
+	 */
+	public double getMean(Counter counter){
+		int c = counter.ordinal();
+		return counterSamples[c] == 0? 0 : (double) counterTotal[c] / counterSamples[c];
+	}
+
+	/**
+	 * Returns the number of garbage collections since the statistics were created.
+	 * @return the number of collections
+	 */
+	public long getGcCount(){
+		return gcCount() - gcCountAtStart;
+	}
+
+	/**
+	 * Returns the time spent in garbage collection since the statistics were created.
+	 * @return the collection time, in milliseconds
+	 */
+	public long getGcTimeMillis(){
+		return gcTime() - gcTimeAtStart;
+	}
+
+	/**
+	 * Returns the number of garbage collections over the last {@link #WINDOW_SECONDS} seconds.
+	 * @return the number of collections
+	 */
+	public long getWindowGcCount(){
+		return gcCount() - gcCountAtSlot[(slot + 1) % WINDOW_SECONDS];
+	}
+
+	/**
+	 * Returns the time spent in garbage collection over the last {@link #WINDOW_SECONDS} seconds.
+	 * @return the collection time, in milliseconds
+	 */
+	public long getWindowGcTimeMillis(){
+		return gcTime() - gcTimeAtSlot[(slot + 1) % WINDOW_SECONDS];
+	}
+
+	private long gcCount(){
+		long count = 0;
+		for(GarbageCollectorMXBean gc : gcBeans){
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private long gcTime(){
+		long time = 0;
+		for(GarbageCollectorMXBean gc : gcBeans){
+			time += Math.max(0, gc.getCollectionTime());
+		}
+		return time;
+	}
+
+	/**
+	 * Writes the statistics for the whole run as CSV: one table for the phases, in microseconds,
+	 * one for the counters and one for the garbage collectors, separated by empty lines.
+	 * @param out where to write the statistics
+	 */
+	public void writeCsv(Writer out){
+		PrintWriter csv = new PrintWriter(out);
+		csv.println("phase,count,mean_us,p50_us,p90_us,p99_us,p99.9_us,max_us");
+		for(Phase phase : Phase.values()){
+			LatencyHistogram h = getTotal(phase);
+			csv.printf(Locale.ROOT, "%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f%n", phase.name().toLowerCase(Locale.ROOT),
+					h.getCount(), h.getMean() / 1000, h.getValueAtPercentile(50) / 1000.0,
+					h.getValueAtPercentile(90) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+					h.getValueAtPercentile(99.9) / 1000.0, h.getMax() / 1000.0);
+		}
+		csv.println();
+		csv.println("counter,steps,mean,peak");
+		for(Counter counter : Counter.values()){
+			csv.printf(Locale.ROOT, "%s,%d,%.1f,%d%n", counter.name().toLowerCase(Locale.ROOT),
+					counterSamples[counter.ordinal()], getMean(counter), getPeak(counter));
+		}
+		csv.println();
+		csv.println("collector,count,time_ms");
+		for(GarbageCollectorMXBean gc : gcBeans){
+			csv.printf(Locale.ROOT, "%s,%d,%d%n", gc.getName(), gc.getCollectionCount(), gc.getCollectionTime());
+		}
+		csv.flush();
+	}
+
+	/**
+	 * Writes the statistics to a CSV file when the program exits. The shutdown hook does not read the
+	 * statistics itself: it asks the thread that records them to write the file on its next
+	 * {@link #record(Phase, long)}, and waits for it. Only if that thread has stopped recording does the
+	 * hook write the file itself, once nothing can change the statistics any more.
+	 * @param file the file to write
+	 */
+	public void writeCsvOnExit(final File file){
+		Runtime.getRuntime().addShutdownHook(new Thread(new ExitCsv(file)));
+	}
+
+	/**
+	 * Shutdown hook handing the writing of a CSV file over to the recording thread.
+	 */
+	private class ExitCsv implements Runnable {
+		private final File file;
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private final CountDownLatch written = new CountDownLatch(1);
+
+		ExitCsv(File file){
+			this.file = file;
+		}
+
+		public void run() {
+			exitCsv = this;
+			try{
+				if(!written.await(EXIT_CSV_WAIT_MILLIS, TimeUnit.MILLISECONDS)){
+					// nothing is recording; write the file here, or wait if the recording thread just started to
+					write();
+					written.await();
+				}
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Writes the file, unless another thread already did or is doing it.
+		 */
+		void write(){
+			if(!claimed.compareAndSet(false, true)){
+				return;
+			}
+			exitCsv = null;
+			try(Writer out = new FileWriter(file)){
+				writeCsv(out);
+			}
+			catch(IOException e){
+				e.printStackTrace();
+			}
+			finally{
+				written.countDown();
+			}
+		}
+	}
+}
@@ -0,0 +1,281 @@
+package rbadia.voidspace.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import rbadia.voidspace.main.GameStatus;
+import rbadia.voidspace.simulation.InputSnapshot;
+import rbadia.voidspace.simulation.LevelTable;
+import rbadia.voidspace.simulation.Simulation;
+
+/**
+ * A recorded game session, read from a file written by {@link SessionRecorder}.
+ * <p>
+ * The file starts with a header: the magic number {@code VSR2}, the random seed and the step duration in
+ * nanoseconds (longs), the play field width and height and the asteroid count (ints), and the name of the
+ * level table (modified UTF-8, as written by {@link java.io.DataOutput#writeUTF(String)}). Then come the
+ * runs of steps: the control mask of the run as one byte, followed by the number of steps in the run,
+ * 7 bits per byte with the high bit set on all bytes but the last. The byte {@code 0xFF}, never a valid
+ * mask, ends the runs and is followed by the final status: the number of steps, the score and the asteroids
+ * destroyed (longs), the ships left (an int) and the game flags (a byte). A session cut short before the
+ * recorder was closed has no final status, but can still be replayed.
+ */
+public class Recording {
+	static final int MAGIC = 0x56535232;
+	static final int END = 0xFF;
+
+	private static final int GAME_STARTED = 1;
+	private static final int GAME_STARTING = 1 << 1;
+	private static final int GAME_OVER = 1 << 2;
+
+	private long seed;
+	private long tickNanos;
+	private int width;
+	private int height;
+	private int asteroidCount;
+	private LevelTable levels;
+
+	private byte[] runMasks = new byte[64];
+	private long[] runLengths = new long[64];
+	private int runCount;
+	private long ticks;
+
+	private boolean complete;
+	private long finalScore;
+	private long finalAsteroidsDestroyed;
+	private int finalShipsLeft;
+	private int finalFlags;
+
+	private Recording(){
+	}
+
+	/**
+	 * Reads a recorded session from a file.
+	 * @param file the file to read
+	 * @return the recording
+	 * @throws IOException if the file can't be read or is not a recording
+	 */
+	public static Recording read(File file) throws IOException {
+		try(InputStream in = new FileInputStream(file)){
+			return read(in);
+		}
+	}
+
+	/**
+	 * Reads a recorded session from a stream.
+	 * @param in the stream to read; not closed
+	 * @return the recording
+	 * @throws IOException if the stream can't be read or is not a recording, or its level table can't be loaded
+	 */
+	public static Recording read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if(data.readInt() != MAGIC){
+			throw new IOException("Not a session recording");
+		}
+		Recording recording = new Recording();
+		recording.seed = data.readLong();
+		recording.tickNanos = data.readLong();
+		recording.width = data.readInt();
+		recording.height = data.readInt();
+		recording.asteroidCount = data.readInt();
+		recording.levels = LevelTable.load(data.readUTF());
+		if(recording.tickNanos <= 0){
+			throw new IOException("Invalid step duration: " + recording.tickNanos);
+		}
+
+		while(true){
+			int mask = data.read();
+			if(mask < 0){
+				// the recorder was not closed
+				return recording;
+			}
+			if(mask == END){
+				break;
+			}
+			long length;
+			try{
+				length = readVarLong(data);
+			}
+			catch(EOFException e){
+				return recording;
+			}
+			recording.addRun(mask, length);
+		}
+
+		long recordedTicks = data.readLong();
+		if(recordedTicks != recording.ticks){
+			throw new IOException("Expected " + recordedTicks + " steps, found " + recording.ticks);
+		}
+		recording.finalScore = data.readLong();
+		recording.finalAsteroidsDestroyed = data.readLong();
+		recording.finalShipsLeft = data.readInt();
+		recording.finalFlags = data.readUnsignedByte();
+		recording.complete = true;
+		return recording;
+	}
+
+	private void addRun(int mask, long length){
+		if(runCount == runMasks.length){
+			runMasks = Arrays.copyOf(runMasks, runCount * 2);
+			runLengths = Arrays.copyOf(runLengths, runCount * 2);
+		}
+		runMasks[runCount] = (byte) mask;
+		runLengths[runCount] = length;
+		runCount++;
+		ticks += length;
+	}
+
+	/**
+	 * Creates a simulation in the state the recorded session started in.
+	 * @return a new simulation, showing the title screen
+	 */
+	public Simulation newSimulation(){
+		Simulation simulation = new Simulation(width, height, seed);
+		simulation.setAsteroidCount(asteroidCount);
+		simulation.setLevelTable(levels);
+		return simulation;
+	}
+
+	/**
+	 * Runs every recorded step on a simulation, as fast as possible.
+	 * @param simulation a simulation from {@link #newSimulation()}
+	 * @return the status after the last step
+	 */
+	public GameStatus.Snapshot play(Simulation simulation){
+		for(int r=0; r<runCount; r++){
+			InputSnapshot input = InputSnapshot.of(runMasks[r]);
+			for(long i=0; i<runLengths[r]; i++){
+				simulation.step(tickNanos, input);
+			}
+		}
+		return simulation.getStatus().getSnapshot();
+	}
+
+	/**
+	 * Indicates if a status is the same as the one the recorded session ended with.
+	 * @param status the status after replaying the session
+	 * @return if the status matches, or false if the recording has no final status
+	 */
+	public boolean matchesFinalStatus(GameStatus.Snapshot status){
+		return complete && status.getScore() == finalScore
+				&& status.getAsteroidsDestroyed() == finalAsteroidsDestroyed
+				&& status.getShipsLeft() == finalShipsLeft && flags(status) == finalFlags;
+	}
+
+	/**
+	 * Packs the game flags of a status into a byte.
+	 * @param status the status
+	 * @return the flags
+	 */
+	static int flags(GameStatus.Snapshot status){
+		return (status.isGameStarted()? GAME_STARTED : 0) | (status.isGameStarting()? GAME_STARTING : 0)
+				| (status.isGameOver()? GAME_OVER : 0);
+	}
+
+	/**
+	 * Writes a positive number 7 bits at a time, lowest bits first.
+	 * @param out where to write the number
+	 * @param value the number
+	 * @throws IOException if the number can't be written
+	 */
+	static void writeVarLong(DataOutput out, long value) throws IOException {
+		while((value & ~0x7FL) != 0){
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		for(int shift=0; shift<64; shift+=7){
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0){
+				return value;
+			}
+		}
+		throw new IOException("Invalid run length");
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	public int getAsteroidCount() {
+		return asteroidCount;
+	}
+
+	/**
+	 * Returns the levels the session was played with.
+	 * @return the level table
+	 */
+	public LevelTable getLevelTable() {
+		return levels;
+	}
+
+	/**
+	 * Returns the number of recorded steps.
+	 * @return the number of steps
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Returns the number of runs of steps with the same controls.
+	 * @return the number of runs
+	 */
+	public int getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * Returns the control mask of a run of steps.
+	 * @param run the run index, from 0 to {@link #getRunCount()} - 1
+	 * @return a combination of the control bits in {@link InputSnapshot}
+	 */
+	public int getRunMask(int run) {
+		return runMasks[run];
+	}
+
+	/**
+	 * Returns the number of steps in a run.
+	 * @param run the run index, from 0 to {@link #getRunCount()} - 1
+	 * @return the number of steps
+	 */
+	public long getRunLength(int run) {
+		return runLengths[run];
+	}
+
+	/**
+	 * Indicates if the recorder was closed, so the final status is known.
+	 * @return if the recording has a final status
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	public long getFinalScore() {
+		return finalScore;
+	}
+
+	public long getFinalAsteroidsDestroyed() {
+		return finalAsteroidsDestroyed;
+	}
+
+	public int getFinalShipsLeft() {
+		return finalShipsLeft;
+	}
+}
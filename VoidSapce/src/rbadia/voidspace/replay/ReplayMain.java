@@ -0,0 +1,65 @@
+package rbadia.voidspace.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+import rbadia.voidspace.main.GameStatus;
+import rbadia.voidspace.perf.LatencyHistogram;
+import rbadia.voidspace.perf.PerfStats;
+import rbadia.voidspace.simulation.Simulation;
+
+/**
+ * Replays a recorded session headlessly, as fast as possible, and checks that it ends with the same status
+ * it was recorded with. Also reports how many steps per second the simulation runs, so a recording of a
+ * real session doubles as a benchmark.
+ * <p>
+ * Usage: {@code ReplayMain <recording> [runs]}. Exits with status 1 if a replay does not match the recording.
+ */
+public class ReplayMain {
+
+	/**
+	 * @param args the recording to replay, and optionally how many times to replay it
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1){
+			System.err.println("Usage: ReplayMain <recording> [runs]");
+			System.exit(2);
+		}
+		Recording recording = Recording.read(new File(args[0]));
+		int runs = args.length > 1? Integer.parseInt(args[1]) : 1;
+
+		long ticks = recording.getTicks();
+		double sessionSeconds = ticks * recording.getTickNanos() / 1e9;
+		System.out.printf(Locale.ROOT, "%s: seed %d, %d asteroids, %d steps in %d runs, %.1f s of play%n",
+				args[0], recording.getSeed(), recording.getAsteroidCount(), ticks, recording.getRunCount(),
+				sessionSeconds);
+		if(!recording.isComplete()){
+			System.out.println("The recording has no final status; it can't be checked");
+		}
+
+		boolean matched = true;
+		for(int run=1; run<=runs; run++){
+			Simulation simulation = recording.newSimulation();
+			simulation.setPerfStats(new PerfStats());
+			long start = System.nanoTime();
+			GameStatus.Snapshot status = recording.play(simulation);
+			long elapsed = System.nanoTime() - start;
+
+			boolean matches = recording.matchesFinalStatus(status);
+			matched &= matches || !recording.isComplete();
+			LatencyHistogram tick = simulation.getPerfStats().getTotal(PerfStats.Phase.TICK);
+			System.out.printf(Locale.ROOT, "run %d: %.1f ms, %.0f steps/s, %.0fx real time, step p50 %.1f us, p99 %.1f us"
+					+ " - score %d, asteroids destroyed %d, ships left %d%s%n",
+					run, elapsed / 1e6, ticks * 1e9 / elapsed, sessionSeconds * 1e9 / elapsed,
+					tick.getValueAtPercentile(50) / 1000.0, tick.getValueAtPercentile(99) / 1000.0,
+					status.getScore(), status.getAsteroidsDestroyed(), status.getShipsLeft(),
+					!recording.isComplete()? "" : matches? " (matches)" : " (DIFFERS from recording)");
+		}
+		if(!matched){
+			System.out.printf(Locale.ROOT, "recorded: score %d, asteroids destroyed %d, ships left %d%n",
+					recording.getFinalScore(), recording.getFinalAsteroidsDestroyed(), recording.getFinalShipsLeft());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package rbadia.voidspace.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import rbadia.voidspace.main.GameStatus;
+import rbadia.voidspace.simulation.InputSnapshot;
+import rbadia.voidspace.simulation.Simulation;
+
+/**
+ * Records a game session so that it can be replayed: the simulation's seed and settings, then the player's
+ * controls at every step. Steps with the same controls are written as one run, so a long session takes a few
+ * bytes per key press. The status at the last recorded step is written when the recorder is closed, so a
+ * replay can check that it ended the same way. See {@link Recording} for the file format.
+ * <p>
+ * Steps are recorded by the game loop thread; the recorder can be closed from any thread, e.g. on exit.
+ */
+public class SessionRecorder implements Closeable {
+	private final DataOutputStream out;
+
+	// the current run of steps with the same controls
+	private int runMask = -1;
+	private long runLength;
+	private long ticks;
+	private GameStatus.Snapshot lastStatus;
+	private boolean closed;
+
+	/**
+	 * Starts recording a session to a file.
+	 * @param file the file to write
+	 * @param simulation the simulation to record; must not have been stepped yet
+	 * @param tickNanos the duration of each step in nanoseconds
+	 * @throws IOException if the file can't be written
+	 */
+	public SessionRecorder(File file, Simulation simulation, long tickNanos) throws IOException {
+		this(new FileOutputStream(file), simulation, tickNanos);
+	}
+
+	/**
+	 * Starts recording a session to a stream.
+	 * @param out the stream to write, closed with the recorder
+	 * @param simulation the simulation to record; must not have been stepped yet
+	 * @param tickNanos the duration of each step in nanoseconds
+	 * @throws IOException if the stream can't be written
+	 */
+	public SessionRecorder(OutputStream out, Simulation simulation, long tickNanos) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.out.writeInt(Recording.MAGIC);
+		this.out.writeLong(simulation.getSeed());
+		this.out.writeLong(tickNanos);
+		this.out.writeInt(simulation.getWidth());
+		this.out.writeInt(simulation.getHeight());
+		this.out.writeInt(simulation.getAsteroidCount());
+		this.out.writeUTF(simulation.getLevelTable().getName());
+		this.lastStatus = simulation.getStatus().getSnapshot();
+	}
+
+	/**
+	 * Records one step. Should be called by the game loop thread right after each step.
+	 * @param input the controls the step ran with
+	 * @param status the status published by the step
+	 */
+	public synchronized void record(InputSnapshot input, GameStatus.Snapshot status){
+		if(closed){
+			return;
+		}
+		int mask = input.getMask();
+		if(mask != runMask){
+			try{
+				writeRun();
+			}
+			catch(IOException e){
+				System.err.println("Recording stopped: " + e);
+				closed = true;
+				return;
+			}
+			runMask = mask;
+			runLength = 0;
+		}
+		runLength++;
+		ticks++;
+		lastStatus = status;
+	}
+
+	/**
+	 * Writes the current run, if it has any steps: the control mask, then the number of steps.
+	 * @throws IOException if the stream can't be written
+	 */
+	private void writeRun() throws IOException {
+		if(runLength == 0){
+			return;
+		}
+		out.writeByte(runMask);
+		Recording.writeVarLong(out, runLength);
+	}
+
+	/**
+	 * Returns the number of steps recorded so far.
+	 * @return the number of steps
+	 */
+	public synchronized long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Writes the last run and the final status, and closes the file. Steps recorded afterwards are ignored.
+	 * @throws IOException if the stream can't be written
+	 */
+	public synchronized void close() throws IOException {
+		if(closed){
+			return;
+		}
+		closed = true;
+		try{
+			writeRun();
+			out.writeByte(Recording.END);
+			out.writeLong(ticks);
+			out.writeLong(lastStatus.getScore());
+			out.writeLong(lastStatus.getAsteroidsDestroyed());
+			out.writeInt(lastStatus.getShipsLeft());
+			out.writeByte(Recording.flags(lastStatus));
+		}
+		finally{
+			out.close();
+		}
+	}
+
+	/**
+	 * Closes the recorder when the program exits.
+	 */
+	public void closeOnExit(){
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable(){
+			public void run() {
+				try{
+					close();
+				}
+				catch(IOException e){
+					e.printStackTrace();
+				}
+			}
+		}));
+	}
+}
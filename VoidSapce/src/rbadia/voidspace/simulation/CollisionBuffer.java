@@ -0,0 +1,112 @@
+package rbadia.voidspace.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The collisions found during a step, in the order they were found, waiting to be resolved.
+ * <p>
+ * Each record is a kind and two indexes: the entity that hit, e.g. a bullet, and the entity it hit, e.g.
+ * an asteroid. Detection only adds records, so it doesn't change the entities it is checking; a single
+ * pass over the records afterwards applies their effects, skipping the ones whose entities were already
+ * destroyed by an earlier record.
+ * <p>
+ * Like {@link SpatialGrid}, the buffer keeps its storage between steps: {@link #clear()} empties it
+ * without freeing anything, and the arrays only grow when more collisions are found than ever before.
+ */
+class CollisionBuffer {
+	/**
+	 * What collided.
+	 */
+	enum Kind {
+		/** A bullet, by its index in the bullet pool, and an asteroid, by its index in the asteroid store. */
+		BULLET_ASTEROID,
+		/** A bullet, by its index in the bullet pool, and an enemy ship, by its index in the fleet. */
+		BULLET_ENEMY_SHIP,
+		/** The player's ship, always index 0, and an asteroid, by its index in the asteroid store. */
+		SHIP_ASTEROID,
+		/** The player's ship, always index 0, and an enemy ship, by its index in the fleet. */
+		SHIP_ENEMY_SHIP,
+		/** The player's ship, always index 0, and an enemy bullet, by its ship's fleet index times
+		 * {@link EnemyFleet#BULLETS_PER_SHIP} plus its index in the ship's bullets. */
+		ENEMY_BULLET_SHIP
+	}
+
+	private static final Kind[] KINDS = Kind.values();
+
+	private byte[] kind;
+	private int[] first;
+	private int[] second;
+	private int size;
+
+	/**
+	 * Creates a new, empty buffer.
+	 * @param capacity the number of records to reserve room for
+	 */
+	CollisionBuffer(int capacity){
+		capacity = Math.max(capacity, 1);
+		kind = new byte[capacity];
+		first = new int[capacity];
+		second = new int[capacity];
+	}
+
+	/**
+	 * Removes all records.
+	 */
+	void clear(){
+		size = 0;
+	}
+
+	/**
+	 * Adds a record.
+	 * @param kind what collided
+	 * @param first the index of the entity that hit
+	 * @param second the index of the entity that was hit
+	 */
+	void add(Kind kind, int first, int second){
+		if(size == this.kind.length){
+			int capacity = size * 2;
+			this.kind = Arrays.copyOf(this.kind, capacity);
+			this.first = Arrays.copyOf(this.first, capacity);
+			this.second = Arrays.copyOf(this.second, capacity);
+		}
+		this.kind[size] = (byte) kind.ordinal();
+		this.first[size] = first;
+		this.second[size] = second;
+		size++;
+	}
+
+	/**
+	 * Returns the number of records.
+	 * @return the number of records
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Returns what collided in a record.
+	 * @param i the record index, from 0 to {@link #size()} - 1
+	 * @return the kind of collision
+	 */
+	Kind getKind(int i){
+		return KINDS[kind[i]];
+	}
+
+	/**
+	 * Returns the index of the entity that hit in a record.
+	 * @param i the record index, from 0 to {@link #size()} - 1
+	 * @return the entity index
+	 */
+	int getFirst(int i){
+		return first[i];
+	}
+
+	/**
+	 * Returns the index of the entity that was hit in a record.
+	 * @param i the record index, from 0 to {@link #size()} - 1
+	 * @return the entity index
+	 */
+	int getSecond(int i){
+		return second[i];
+	}
+}
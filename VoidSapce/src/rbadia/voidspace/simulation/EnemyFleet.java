@@ -0,0 +1,358 @@
+package rbadia.voidspace.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+
+import rbadia.voidspace.model.Bullet;
+import rbadia.voidspace.model.BulletPool;
+import rbadia.voidspace.model.ChunkedUpdate;
+import rbadia.voidspace.model.EnemyShip;
+import rbadia.voidspace.model.Ship;
+
+/**
+ * Fixed-size pool of enemy ships, each with its own bullets and a small state machine that flies it.
+ * All ships and bullets are created up front and reused, like a {@link BulletPool}: the ships in use are
+ * kept at the start of the pool, and releasing one moves the last ship in use, with its bullets and its
+ * AI state, into its place.
+ * <p>
+ * A ship enters from the top of the screen down to its patrol row, then patrols from side to side,
+ * firing down at regular intervals. After a while it dives at the player's ship and, once it has left
+ * the bottom of the screen, enters again from the top. While the player's ship is being replaced there
+ * is nothing to dive at: patrolling ships wait to dive until it is back, and diving ships fly straight down.
+ * <p>
+ * {@link #update(Ship, int, int, int)} moves the whole fleet in one pass. Each ship only reads the
+ * player's ship and changes its own state and bullets, and has its own random source, seeded when it
+ * spawns, so large fleets are updated in parallel chunks on the common {@link ForkJoinPool}, by a
+ * {@link ChunkedUpdate}, with the same result as a serial pass.
+ */
+public class EnemyFleet {
+	/**
+	 * What an enemy ship is doing.
+	 */
+	public enum State {
+		/** Flying down from above the screen to its patrol row. */
+		ENTERING,
+		/** Flying from side to side along its patrol row, firing. */
+		PATROLLING,
+		/** Diving at the player's ship, until it leaves the bottom of the screen. */
+		DIVING
+	}
+
+	/**
+	 * Number of bullets each ship can have on screen at once.
+	 */
+	public static final int BULLETS_PER_SHIP = 3;
+
+	// fleets this large are updated in parallel, in chunks of this many ships
+	private static final int PARALLEL_THRESHOLD = 32;
+	private static final int CHUNK_SIZE = 16;
+
+	// patrol rows, from the top of the screen
+	private static final int PATROL_Y = 5;
+	private static final int PATROL_ROWS = 3;
+	private static final int PATROL_ROW_HEIGHT = 30;
+	// durations, in 1/60ths of a second
+	private static final int MIN_PATROL_TICKS = 4 * Simulation.BASE_TICK_RATE;
+	private static final int MAX_PATROL_TICKS = 10 * Simulation.BASE_TICK_RATE;
+	private static final int FIRE_INTERVAL_TICKS = Simulation.BASE_TICK_RATE / 2;
+	private static final int DIVE_SPEED_FACTOR = 2;
+
+	private static final State[] STATES = State.values();
+
+	private final int width;
+	private final int height;
+	private final EnemyShip[] ships;
+	private final BulletPool[] bullets;
+	// AI state of each ship, by pool index
+	private final byte[] state;
+	private final int[] direction;
+	private final int[] patrolY;
+	private final int[] stateTicks;
+	private final int[] fireTicks;
+	private final long[] randomState;
+	private int size;
+
+	// arguments of the update in progress, read by the update tasks
+	private Ship target;
+	private int shipDistance;
+	private int bulletDistance;
+	private int ticksPerBaseTick;
+	private final ChunkedUpdate updater = new ChunkedUpdate(PARALLEL_THRESHOLD, CHUNK_SIZE){
+		@Override
+		protected void update(int from, int to) {
+			EnemyFleet.this.update(from, to);
+		}
+	};
+
+	/**
+	 * Creates a new fleet.
+	 * @param capacity the most ships that can be in play at once
+	 * @param width the width of the play field
+	 * @param height the height of the play field
+	 */
+	public EnemyFleet(int capacity, int width, int height){
+		this.width = width;
+		this.height = height;
+		ships = new EnemyShip[capacity];
+		bullets = new BulletPool[capacity];
+		for(int i=0; i<capacity; i++){
+			ships[i] = new EnemyShip();
+			bullets[i] = new BulletPool(BULLETS_PER_SHIP);
+		}
+		state = new byte[capacity];
+		direction = new int[capacity];
+		patrolY = new int[capacity];
+		stateTicks = new int[capacity];
+		fireTicks = new int[capacity];
+		randomState = new long[capacity];
+	}
+
+	/**
+	 * Puts a new ship in play, above the screen at a random x location, about to enter.
+	 * @param seed the seed of the ship's random source
+	 * @param ticksPerBaseTick the number of steps that make up 1/60th of a second
+	 * @return the ship, or null if all ships are in play
+	 */
+	public EnemyShip spawn(long seed, int ticksPerBaseTick){
+		if(size == ships.length){
+			return null;
+		}
+		int i = size++;
+		// never let the random state be 0, xorshift would get stuck there
+		randomState[i] = seed == 0? 1 : seed;
+		EnemyShip ship = ships[i];
+		ship.setSpeed(EnemyShip.DEFAULT_SPEED);
+		ship.setLocation(nextInt(i, width - ship.width), -ship.height);
+		bullets[i].clear();
+		state[i] = (byte) State.ENTERING.ordinal();
+		direction[i] = nextInt(i, 2) == 0? -1 : 1;
+		patrolY[i] = PATROL_Y + nextInt(i, PATROL_ROWS) * PATROL_ROW_HEIGHT;
+		fireTicks[i] = nextInt(i, FIRE_INTERVAL_TICKS) * ticksPerBaseTick;
+		return ship;
+	}
+
+	/**
+	 * Takes a ship out of play, with its bullets. The last ship in play takes its index.
+	 * @param i the index of the ship
+	 */
+	public void release(int i){
+		int last = --size;
+		bullets[i].clear();
+		swap(ships, i, last);
+		swap(bullets, i, last);
+		state[i] = state[last];
+		direction[i] = direction[last];
+		patrolY[i] = patrolY[last];
+		stateTicks[i] = stateTicks[last];
+		fireTicks[i] = fireTicks[last];
+		randomState[i] = randomState[last];
+	}
+
+	private static <T> void swap(T[] array, int i, int j){
+		T t = array[i];
+		array[i] = array[j];
+		array[j] = t;
+	}
+
+	/**
+	 * Takes all ships out of play.
+	 */
+	public void clear(){
+		for(int i=0; i<size; i++){
+			bullets[i].clear();
+		}
+		size = 0;
+	}
+
+	/**
+	 * Takes ships out of play until no more than the given number are, but only ships that are above
+	 * the screen, about to enter again, so that no ship disappears in sight.
+	 * @param count the number of ships to keep
+	 */
+	public void retireExtra(int count){
+		for(int i=size - 1; i>=0 && size>count; i--){
+			if(getState(i) == State.ENTERING && ships[i].y + ships[i].height <= 0){
+				release(i);
+			}
+		}
+	}
+
+	/**
+	 * Moves every ship and its bullets by one step, and fires the bullets that are due.
+	 * @param target the player's ship, which diving ships fly at, or null while it is being replaced
+	 * @param shipDistance how far a ship moves this step
+	 * @param bulletDistance how far a bullet moves this step
+	 * @param ticksPerBaseTick the number of steps that make up 1/60th of a second
+	 */
+	public void update(Ship target, int shipDistance, int bulletDistance, int ticksPerBaseTick){
+		this.target = target;
+		this.shipDistance = shipDistance;
+		this.bulletDistance = bulletDistance;
+		this.ticksPerBaseTick = ticksPerBaseTick;
+		updater.run(size);
+		this.target = null;
+	}
+
+	/**
+	 * Updates the ships from one index, inclusive, to another, exclusive.
+	 */
+	private void update(int from, int to){
+		for(int i=from; i<to; i++){
+			moveBullets(i);
+			EnemyShip ship = ships[i];
+			switch(getState(i)){
+			case ENTERING:
+				if(ship.y + shipDistance < patrolY[i]){
+					ship.translate(0, shipDistance);
+				}
+				else{
+					ship.setLocation(ship.x, patrolY[i]);
+					setState(i, State.PATROLLING, MIN_PATROL_TICKS + nextInt(i, MAX_PATROL_TICKS - MIN_PATROL_TICKS));
+				}
+				break;
+			case PATROLLING:
+				// turn back at the sides of the screen
+				if(ship.x + direction[i] * shipDistance < 0){
+					direction[i] = 1;
+				}
+				else if(ship.x + direction[i] * shipDistance + ship.width > width){
+					direction[i] = -1;
+				}
+				ship.translate(direction[i] * shipDistance, 0);
+				if(--fireTicks[i] <= 0){
+					fire(i);
+					fireTicks[i] = (FIRE_INTERVAL_TICKS + nextInt(i, FIRE_INTERVAL_TICKS / 2)) * ticksPerBaseTick;
+				}
+				// only dive when there is a ship to dive at
+				if(--stateTicks[i] <= 0 && target != null){
+					setState(i, State.DIVING, 0);
+				}
+				break;
+			case DIVING:
+				// steer towards the player's ship, if it is in play
+				int dx = target == null? 0 : target.x + target.width / 2 - (ship.x + ship.width / 2);
+				ship.translate(Math.max(-shipDistance, Math.min(shipDistance, dx)), DIVE_SPEED_FACTOR * shipDistance);
+				if(ship.y >= height){
+					// come back from the top
+					ship.setLocation(nextInt(i, width - ship.width), -ship.height);
+					setState(i, State.ENTERING, 0);
+				}
+				break;
+			}
+		}
+	}
+
+	private void setState(int i, State newState, int ticks){
+		state[i] = (byte) newState.ordinal();
+		stateTicks[i] = ticks * ticksPerBaseTick;
+	}
+
+	/**
+	 * Fires a bullet from a ship, unless all its bullets are on screen.
+	 */
+	private void fire(int i){
+		Bullet bullet = bullets[i].acquire();
+		if(bullet != null){
+			bullet.placeAt(ships[i]);
+		}
+	}
+
+	/**
+	 * Moves the bullets of a ship down, and takes the ones that left the screen out of play.
+	 */
+	private void moveBullets(int i){
+		BulletPool pool = bullets[i];
+		for(int b=0; b<pool.size(); b++){
+			Bullet bullet = pool.get(b);
+			if(bullet.y + bulletDistance <= height){
+				bullet.translate(0, bulletDistance);
+			}
+			else{
+				// the last bullet takes this index; move it next
+				pool.release(b);
+				b--;
+			}
+		}
+	}
+
+	/**
+	 * Returns the next random number of a ship, from 0 (inclusive) to the given bound (exclusive).
+	 * Each ship has its own xorshift random source, so that ships can be updated in any order.
+	 */
+	private int nextInt(int i, int bound){
+		long x = randomState[i];
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		randomState[i] = x;
+		return (int) ((x >>> 33) % bound);
+	}
+
+	/**
+	 * Returns the number of ships in play.
+	 * @return the number of ships in play
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns the most ships that can be in play at once.
+	 * @return the fleet capacity
+	 */
+	public int getCapacity(){
+		return ships.length;
+	}
+
+	/**
+	 * Returns a ship in play.
+	 * @param i the index of the ship, from 0 to {@link #size()} - 1
+	 * @return the ship
+	 */
+	public EnemyShip get(int i){
+		return ships[i];
+	}
+
+	/**
+	 * Returns the bullets of a ship in play.
+	 * @param i the index of the ship, from 0 to {@link #size()} - 1
+	 * @return the ship's bullets
+	 */
+	public BulletPool getBullets(int i){
+		return bullets[i];
+	}
+
+	/**
+	 * Returns what a ship in play is doing.
+	 * @param i the index of the ship, from 0 to {@link #size()} - 1
+	 * @return the state of the ship
+	 */
+	public State getState(int i){
+		return STATES[state[i]];
+	}
+
+	/**
+	 * Returns the horizontal velocity of a ship in play, for drawing it between steps.
+	 * Diving ships steer, so their horizontal velocity is not known ahead and is 0.
+	 * @param i the index of the ship, from 0 to {@link #size()} - 1
+	 * @return the velocity, in pixels per 1/60th of a second
+	 */
+	public int getVelocityX(int i){
+		return getState(i) == State.PATROLLING? direction[i] * ships[i].getSpeed() : 0;
+	}
+
+	/**
+	 * Returns the vertical velocity of a ship in play, for drawing it between steps.
+	 * @param i the index of the ship, from 0 to {@link #size()} - 1
+	 * @return the velocity, in pixels per 1/60th of a second
+	 */
+	public int getVelocityY(int i){
+		switch(getState(i)){
+		case ENTERING:
+			return ships[i].getSpeed();
+		case DIVING:
+			return DIVE_SPEED_FACTOR * ships[i].getSpeed();
+		default:
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package rbadia.voidspace.simulation;
+
+/**
+ * The state of the player's controls at the time of a simulation step.
+ */
+public final class InputSnapshot {
+	/**
+	 * Bits of each control in an input mask.
+	 */
+	public static final int LEFT = 1;
+	public static final int RIGHT = 1 << 1;
+	public static final int UP = 1 << 2;
+	public static final int DOWN = 1 << 3;
+	public static final int FIRE = 1 << 4;
+	public static final int BOOST = 1 << 5;
+	public static final int START = 1 << 6;
+
+	// one shared snapshot for every combination of controls
+	private static final InputSnapshot[] SNAPSHOTS = new InputSnapshot[1 << 7];
+	static {
+		for(int mask=0; mask<SNAPSHOTS.length; mask++){
+			SNAPSHOTS[mask] = new InputSnapshot((mask & LEFT) != 0, (mask & RIGHT) != 0, (mask & UP) != 0,
+					(mask & DOWN) != 0, (mask & FIRE) != 0, (mask & BOOST) != 0, (mask & START) != 0);
+		}
+	}
+
+	/**
+	 * No controls pressed.
+	 */
+	public static final InputSnapshot NONE = SNAPSHOTS[0];
+
+	private final boolean left;
+	private final boolean right;
+	private final boolean up;
+	private final boolean down;
+	private final boolean fire;
+	private final boolean boost;
+	private final boolean start;
+
+	/**
+	 * Creates a new input snapshot.
+	 * @param left if the ship should move left
+	 * @param right if the ship should move right
+	 * @param up if the ship should move up
+	 * @param down if the ship should move down
+	 * @param fire if the ship should fire bullets
+	 * @param boost if the ship should move at double speed
+	 */
+	public InputSnapshot(boolean left, boolean right, boolean up, boolean down, boolean fire, boolean boost){
+		this(left, right, up, down, fire, boost, false);
+	}
+
+	/**
+	 * Creates a new input snapshot.
+	 * @param left if the ship should move left
+	 * @param right if the ship should move right
+	 * @param up if the ship should move up
+	 * @param down if the ship should move down
+	 * @param fire if the ship should fire bullets
+	 * @param boost if the ship should move at double speed
+	 * @param start if a new game should start, when the title screen is showing
+	 */
+	public InputSnapshot(boolean left, boolean right, boolean up, boolean down, boolean fire, boolean boost, boolean start){
+		this.left = left;
+		this.right = right;
+		this.up = up;
+		this.down = down;
+		this.fire = fire;
+		this.boost = boost;
+		this.start = start;
+	}
+
+	/**
+	 * Returns the shared snapshot for the given controls. Does not allocate.
+	 * @param mask the pressed controls, a combination of {@link #LEFT}, {@link #RIGHT}, {@link #UP},
+	 * {@link #DOWN}, {@link #FIRE}, {@link #BOOST} and {@link #START}
+	 * @return the input snapshot
+	 */
+	public static InputSnapshot of(int mask){
+		return SNAPSHOTS[mask & (SNAPSHOTS.length - 1)];
+	}
+
+	/**
+	 * Returns the pressed controls as a bit mask.
+	 * @return a combination of {@link #LEFT}, {@link #RIGHT}, {@link #UP}, {@link #DOWN}, {@link #FIRE},
+	 * {@link #BOOST} and {@link #START}
+	 */
+	public int getMask() {
+		return (left? LEFT : 0) | (right? RIGHT : 0) | (up? UP : 0)
+				| (down? DOWN : 0) | (fire? FIRE : 0) | (boost? BOOST : 0) | (start? START : 0);
+	}
+
+	public boolean isLeft() {
+		return left;
+	}
+
+	public boolean isRight() {
+		return right;
+	}
+
+	public boolean isUp() {
+		return up;
+	}
+
+	public boolean isDown() {
+		return down;
+	}
+
+	public boolean isFire() {
+		return fire;
+	}
+
+	public boolean isBoost() {
+		return boost;
+	}
+
+	public boolean isStart() {
+		return start;
+	}
+}
@@ -0,0 +1,99 @@
+package rbadia.voidspace.simulation;
+
+/**
+ * One row of a {@link LevelTable}: the asteroid wave and enemies of a level.
+ */
+public final class Level {
+	/**
+	 * Asteroid count meaning "the configured size of the asteroid field", see {@link Simulation#setAsteroidCount(int)}.
+	 */
+	public static final int FIELD = -1;
+
+	/**
+	 * How the asteroids of a wave move.
+	 */
+	public enum Pattern {
+		/** Straight down. */
+		STRAIGHT,
+		/** Down and to one side, at an angle picked when each asteroid enters the screen,
+		 * turning back at the sides of the screen. */
+		ZIGZAG
+	}
+
+	private final long minDestroyed;
+	private final int asteroidCount;
+	private final int speed;
+	private final Pattern pattern;
+	private final int drift;
+	private final double fillSeconds;
+	private final boolean pause;
+	private final int enemyShipCount;
+
+	/**
+	 * Creates a new level.
+	 * @param minDestroyed the asteroids to destroy before the level starts
+	 * @param asteroidCount the asteroids on screen, or {@link #FIELD}
+	 * @param speed the falling speed of the asteroids, in pixels per 1/60th of a second
+	 * @param pattern how the asteroids move
+	 * @param drift the greatest sideways speed of a zigzag, in pixels per 1/60th of a second
+	 * @param fillSeconds how long spawning a whole wave takes, or 0 to spawn it at once
+	 * @param pause if the asteroids pause and hide while the explosion of one shows
+	 * @param enemyShipCount the enemy ships in play
+	 */
+	public Level(long minDestroyed, int asteroidCount, int speed, Pattern pattern, int drift,
+			double fillSeconds, boolean pause, int enemyShipCount){
+		this.minDestroyed = minDestroyed;
+		this.asteroidCount = asteroidCount;
+		this.speed = speed;
+		this.pattern = pattern;
+		this.drift = drift;
+		this.fillSeconds = fillSeconds;
+		this.pause = pause;
+		this.enemyShipCount = enemyShipCount;
+	}
+
+	public long getMinDestroyed() {
+		return minDestroyed;
+	}
+
+	/**
+	 * Returns the number of asteroids on screen during the level.
+	 * @param fieldSize the configured size of the asteroid field
+	 * @return the number of asteroids
+	 */
+	public int getAsteroidCount(int fieldSize) {
+		return asteroidCount == FIELD? fieldSize : asteroidCount;
+	}
+
+	public int getSpeed() {
+		return speed;
+	}
+
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	public int getDrift() {
+		return drift;
+	}
+
+	public double getFillSeconds() {
+		return fillSeconds;
+	}
+
+	/**
+	 * Indicates if the asteroids pause and hide while the explosion of an asteroid shot down shows.
+	 * @return if the asteroids pause
+	 */
+	public boolean isPause() {
+		return pause;
+	}
+
+	/**
+	 * Returns the number of enemy ships in play during the level.
+	 * @return the size of the enemy fleet
+	 */
+	public int getEnemyShipCount() {
+		return enemyShipCount;
+	}
+}
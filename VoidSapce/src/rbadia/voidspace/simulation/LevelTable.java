@@ -0,0 +1,200 @@
+package rbadia.voidspace.simulation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The levels of the game, in order of the asteroids the player must destroy to reach them.
+ * <p>
+ * Tables are text files with one level per line, and whitespace separated columns:
+ * asteroids destroyed before the level starts, asteroids on screen (a number, or {@code field} for the
+ * configured field size), falling speed, pattern ({@code straight} or {@code zigzag}), sideways drift,
+ * seconds to spawn a whole wave, {@code yes} if the asteroids pause while an explosion shows, and
+ * the number of enemy ships. Everything after a {@code #} is a comment.
+ * The first level must start at 0 asteroids destroyed. Tables are immutable and can be shared.
+ */
+public class LevelTable {
+	/**
+	 * Name of the table of the normal game.
+	 */
+	public static final String DEFAULT = "levels.txt";
+
+	/**
+	 * Name of the table with thousands of asteroids.
+	 */
+	public static final String CHAOS = "chaos.txt";
+
+	private static final int COLUMNS = 8;
+
+	private static LevelTable defaultTable;
+
+	private final String name;
+	private final Level[] levels;
+
+	/**
+	 * Creates a table of the given levels.
+	 * @param name the name of the table, e.g. the name it was loaded by
+	 * @param levels the levels, in increasing order of asteroids destroyed, starting at 0
+	 */
+	public LevelTable(String name, Level[] levels){
+		if(levels.length == 0 || levels[0].getMinDestroyed() != 0){
+			throw new IllegalArgumentException("The first level must start at 0 asteroids destroyed");
+		}
+		for(int i=1; i<levels.length; i++){
+			if(levels[i].getMinDestroyed() <= levels[i - 1].getMinDestroyed()){
+				throw new IllegalArgumentException("Levels must be in increasing order of asteroids destroyed");
+			}
+		}
+		this.name = name;
+		this.levels = levels.clone();
+	}
+
+	/**
+	 * Returns the table of the normal game.
+	 * @return the default level table
+	 */
+	public static synchronized LevelTable getDefault(){
+		if(defaultTable == null){
+			try{
+				defaultTable = load(DEFAULT);
+			}
+			catch(IOException e){
+				throw new IllegalStateException("The level table is either corrupt or missing", e);
+			}
+		}
+		return defaultTable;
+	}
+
+	/**
+	 * Loads a level table from a file or, if there is no such file, from the tables that come with the game,
+	 * e.g. {@link #CHAOS}.
+	 * @param name the file name or table name
+	 * @return the level table
+	 * @throws IOException if the table can't be found or read, or has errors
+	 */
+	public static LevelTable load(String name) throws IOException {
+		File file = new File(name);
+		InputStream in = file.isFile()? new FileInputStream(file) : LevelTable.class.getResourceAsStream(name);
+		if(in == null){
+			throw new IOException("No such level table: " + name);
+		}
+		try{
+			return read(in, name);
+		}
+		finally{
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a level table.
+	 * @param in the table text, in UTF-8; not closed
+	 * @param source the name of the table
+	 * @return the level table
+	 * @throws IOException if the table can't be read or has errors
+	 */
+	public static LevelTable read(InputStream in, String source) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		List<Level> levels = new ArrayList<Level>();
+		int lineNumber = 0;
+		String line;
+		while((line = reader.readLine()) != null){
+			lineNumber++;
+			int comment = line.indexOf('#');
+			if(comment >= 0){
+				line = line.substring(0, comment);
+			}
+			line = line.trim();
+			if(line.isEmpty()){
+				continue;
+			}
+			try{
+				levels.add(parse(line.split("\\s+")));
+			}
+			catch(IllegalArgumentException e){
+				throw new IOException(source + ":" + lineNumber + ": " + e.getMessage());
+			}
+		}
+		try{
+			return new LevelTable(source, levels.toArray(new Level[levels.size()]));
+		}
+		catch(IllegalArgumentException e){
+			throw new IOException(source + ": " + e.getMessage());
+		}
+	}
+
+	private static Level parse(String[] columns){
+		if(columns.length != COLUMNS){
+			throw new IllegalArgumentException("Expected " + COLUMNS + " columns, found " + columns.length);
+		}
+		long minDestroyed = Long.parseLong(columns[0]);
+		int asteroidCount = "field".equals(columns[1])? Level.FIELD : Integer.parseInt(columns[1]);
+		int speed = Integer.parseInt(columns[2]);
+		Level.Pattern pattern = Level.Pattern.valueOf(columns[3].toUpperCase(Locale.ROOT));
+		int drift = Integer.parseInt(columns[4]);
+		double fillSeconds = Double.parseDouble(columns[5]);
+		int enemyShipCount = Integer.parseInt(columns[7]);
+		if(minDestroyed < 0 || (asteroidCount < 1 && asteroidCount != Level.FIELD) || speed < 1
+				|| drift < 0 || fillSeconds < 0 || enemyShipCount < 0){
+			throw new IllegalArgumentException("Counts, speeds and times must be positive");
+		}
+		return new Level(minDestroyed, asteroidCount, speed, pattern, drift, fillSeconds,
+				yesNo(columns[6]), enemyShipCount);
+	}
+
+	private static boolean yesNo(String column){
+		if("yes".equals(column)){
+			return true;
+		}
+		if("no".equals(column)){
+			return false;
+		}
+		throw new IllegalArgumentException("Expected yes or no: " + column);
+	}
+
+	/**
+	 * Returns the level reached after destroying the given number of asteroids.
+	 * @param destroyed the asteroids destroyed
+	 * @return the level
+	 */
+	public Level getLevel(long destroyed){
+		int i = levels.length - 1;
+		while(i > 0 && levels[i].getMinDestroyed() > destroyed){
+			i--;
+		}
+		return levels[i];
+	}
+
+	/**
+	 * Returns the name of the table, which {@link #load(String)} loads it by if it was loaded.
+	 * @return the table name
+	 */
+	public String getName(){
+		return name;
+	}
+
+	/**
+	 * Returns the number of levels.
+	 * @return the number of levels
+	 */
+	public int size(){
+		return levels.length;
+	}
+
+	/**
+	 * Returns a level.
+	 * @param i the level index, from 0
+	 * @return the level
+	 */
+	public Level get(int i){
+		return levels[i];
+	}
+}
@@ -0,0 +1,916 @@
+package rbadia.voidspace.simulation;
+
+import java.awt.Rectangle;
+import java.util.BitSet;
+import java.util.Random;
+
+import rbadia.voidspace.graphics.GraphicsManager;
+import rbadia.voidspace.main.GameStatus;
+import rbadia.voidspace.model.Bullet;
+import rbadia.voidspace.model.BulletPool;
+import rbadia.voidspace.model.CollisionMask;
+import rbadia.voidspace.model.EnemyShip;
+import rbadia.voidspace.model.EntityStore;
+import rbadia.voidspace.model.Ship;
+import rbadia.voidspace.perf.PerfStats;
+
+/**
+ * Headless game engine. Owns all entity state and the game status, and advances them one step at a time.
+ * Does not draw anything or depend on a display; renderers read the entities between steps.
+ * <p>
+ * A simulation is deterministic: all randomness comes from one random source seeded at construction,
+ * and time only advances through {@link #step(long, InputSnapshot)}. Two simulations with the same seed,
+ * asteroid count and sequence of steps end in the same state, which is what session replays rely on.
+ */
+public class Simulation {
+	/**
+	 * Rate, in updates per second, that entity speeds are expressed in.
+	 */
+	public static final int BASE_TICK_RATE = 60;
+
+	/**
+	 * Duration of a step at the base tick rate, in nanoseconds.
+	 */
+	public static final long BASE_TICK_NANOS = 1000000000L / BASE_TICK_RATE;
+
+	private static final long NEW_SHIP_DELAY = 500 * 1000000L;
+	private static final long NEW_ASTEROID_DELAY = 500 * 1000000L;
+	private static final long GET_READY_DELAY = 1500 * 1000000L;
+	private static final long GAME_OVER_DELAY = 3000 * 1000000L;
+	private static final long BULLET_DELAY = 1000000000L / 8;
+
+	private static final int DEFAULT_ASTEROID_COUNT = 6;
+	private static final int GRID_CELL_SIZE = 64;
+	// the ship fires at most 8 bullets per second, and a bullet crosses the screen in well under a second
+	private static final int MAX_BULLETS = 32;
+	private static final int MAX_ENEMY_SHIPS = 64;
+	private static final long NEW_ENEMY_SHIP_DELAY = NEW_SHIP_DELAY;
+	// collision grid ids of the entities that are not asteroids; asteroids use their index
+	private static final int FIRST_ENEMY_SHIP_ID = -2;
+	private static final int FIRST_ENEMY_BULLET_ID = FIRST_ENEMY_SHIP_ID - MAX_ENEMY_SHIPS;
+	// the longest delay, the "Game Over" message, is 720 steps at 240 steps per second
+	private static final int TIMER_SLOTS = 256;
+
+	/**
+	 * Delays and time spans of the game, counted in steps by the timer wheel.
+	 */
+	private enum Timer {
+		/** Until the "Get Ready" message ends and the game starts. */
+		GET_READY,
+		/** Until the "Game Over" message ends. */
+		GAME_OVER,
+		/** Until the ship blown up is replaced. */
+		SHIP_RESPAWN,
+		/** Since the last explosion of an asteroid; asteroids paused by it move again when it ends. */
+		ASTEROID_EXPLOSION,
+		/** Until another enemy ship can come in. */
+		ENEMY_SHIP_COOLDOWN,
+		/** Until the ship can fire again. */
+		BULLET_COOLDOWN
+	}
+
+	private static final Timer[] TIMERS = Timer.values();
+
+	private final int width;
+	private final int height;
+	private final GameStatus status;
+	private final long seed;
+	private final Random rand;
+	private SimulationListener listener = new SimulationListener(){};
+	private PerfStats perf = PerfStats.DISABLED;
+	private int asteroidCount = DEFAULT_ASTEROID_COUNT;
+	private LevelTable levels = LevelTable.getDefault();
+	private Level level = levels.getLevel(0);
+
+	private final SpatialGrid grid;
+	// solid pixels of the sprites, for the narrow phase of collision checks
+	private final CollisionMask shipMask;
+	private final CollisionMask bulletMask;
+	private final CollisionMask asteroidMask;
+	private final CollisionMask enemyShipMask;
+	private final CollisionBuffer collisions = new CollisionBuffer(MAX_BULLETS);
+	private final BitSet bulletHits = new BitSet();
+	private final BitSet enemyShipHits = new BitSet();
+	private int enemyBulletHit;
+	private int pairCount;
+
+	private Ship ship;
+	private final BulletPool bullets;
+	private final EntityStore asteroids;
+	private final WaveSpawner spawner;
+	private final EnemyFleet enemyShips;
+
+	// simulation clock, in nanoseconds
+	private long time;
+	private long tick;
+	private int ticksPerBaseTick = 1;
+
+	// duration of the current step, which timer delays are converted to steps by
+	private long stepNanos = BASE_TICK_NANOS;
+	private final TimerWheel timers = new TimerWheel(TIMERS.length, TIMER_SLOTS);
+
+	/**
+	 * Creates a new simulation showing the title screen, with a random seed.
+	 * @param width the width of the play field
+	 * @param height the height of the play field
+	 */
+	public Simulation(int width, int height){
+		this(width, height, new Random().nextLong());
+	}
+
+	/**
+	 * Creates a new simulation showing the title screen.
+	 * @param width the width of the play field
+	 * @param height the height of the play field
+	 * @param seed the seed of all the randomness in the game
+	 */
+	public Simulation(int width, int height, long seed){
+		this.width = width;
+		this.height = height;
+		this.status = new GameStatus();
+		this.seed = seed;
+		this.rand = new Random(seed);
+		this.bullets = new BulletPool(MAX_BULLETS);
+		this.enemyShips = new EnemyFleet(MAX_ENEMY_SHIPS, width, height);
+		this.asteroids = new EntityStore(DEFAULT_ASTEROID_COUNT);
+		this.spawner = new WaveSpawner(asteroids, rand, width);
+		this.grid = new SpatialGrid(width, height, GRID_CELL_SIZE);
+		this.shipMask = GraphicsManager.getCollisionMask(GraphicsManager.SHIP);
+		this.bulletMask = GraphicsManager.getCollisionMask(GraphicsManager.BULLET);
+		this.asteroidMask = GraphicsManager.getCollisionMask(GraphicsManager.ASTEROID);
+		this.enemyShipMask = GraphicsManager.getCollisionMask(GraphicsManager.ENEMY_SHIP);
+	}
+
+	/**
+	 * Sets the statistics that step timings and counters are recorded in. By default they are
+	 * {@link PerfStats#DISABLED}, so headless games don't pay for statistics nobody reads.
+	 * @param perf the performance statistics
+	 */
+	public void setPerfStats(PerfStats perf) {
+		this.perf = perf;
+	}
+
+	/**
+	 * Sets the listener notified of game events.
+	 * @param listener the listener
+	 */
+	public void setListener(SimulationListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the number of asteroids in the asteroid field, starting with the next game.
+	 * Levels whose waves are the size of the field use it, see {@link Level#FIELD}.
+	 * @param asteroidCount the number of asteroids
+	 */
+	public void setAsteroidCount(int asteroidCount) {
+		this.asteroidCount = Math.max(1, asteroidCount);
+	}
+
+	/**
+	 * Returns the number of asteroids in the asteroid field.
+	 * @return the number of asteroids
+	 */
+	public int getAsteroidCount() {
+		return asteroidCount;
+	}
+
+	/**
+	 * Sets the levels of the game, starting with the next game.
+	 * @param levels the level table
+	 */
+	public void setLevelTable(LevelTable levels) {
+		this.levels = levels;
+	}
+
+	/**
+	 * Returns the levels of the game.
+	 * @return the level table
+	 */
+	public LevelTable getLevelTable() {
+		return levels;
+	}
+
+	/**
+	 * Returns the current level.
+	 * @return the level of the asteroids destroyed so far
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Prepare for a new game.
+	 */
+	public void newGame(){
+		timers.clear();
+		status.setGameStarting(true);
+		startTimer(Timer.GET_READY, GET_READY_DELAY);
+
+		// init game variables
+		bullets.clear();
+
+		status.setShipsLeft(3);
+		status.setGameOver(false);
+		status.setAsteroidsDestroyed(0);
+		status.setNewAsteroid(false);
+
+		startTimer(Timer.BULLET_COOLDOWN, BULLET_DELAY);
+
+		// init the ship and the asteroids
+		status.setNewShip(false);
+		newShip();
+		level = levels.getLevel(0);
+		spawner.reset();
+		spawnAsteroids();
+		enemyShips.clear();
+		status.setNewEnemyShip(false);
+
+		status.publish();
+		listener.newGameStarted();
+	}
+
+	/**
+	 * Advances the simulation by one step.
+	 * @param dtNanos the duration of the step in nanoseconds, e.g. {@link #BASE_TICK_NANOS}
+	 * @param input the state of the player's controls during the step
+	 */
+	public void step(long dtNanos, InputSnapshot input){
+		long stepStart = System.nanoTime();
+		stepNanos = dtNanos;
+		int ticks = (int) Math.max(1, Math.round((double) BASE_TICK_NANOS / dtNanos));
+		if(ticks != ticksPerBaseTick){
+			ticksPerBaseTick = ticks;
+			tick = 0;
+		}
+
+		// start a new game if asked to on the title screen
+		if(input.isStart() && !status.isGameStarted() && !status.isGameOver() && !status.isGameStarting()){
+			newGame();
+		}
+		time += dtNanos;
+
+		// end the messages, explosions and delays whose time has passed
+		timers.advance(timerExpired);
+
+		// check game or level ending conditions
+		checkConditions();
+
+		// update the game state
+		updateGame();
+
+		// handle input
+		handleInput(input);
+
+		tick++;
+		// let the screen and input handler see the new status
+		status.publish();
+		perf.record(PerfStats.Phase.TICK, stepStart);
+	}
+
+	/**
+	 * Ends the messages and delays whose timers expire.
+	 */
+	private final TimerWheel.ExpiryCallback timerExpired = new TimerWheel.ExpiryCallback(){
+		public void expired(int timer) {
+			switch(TIMERS[timer]){
+			case GET_READY:
+				status.setGameStarting(false);
+				status.setGameStarted(true);
+				break;
+			case GAME_OVER:
+				status.setGameOver(false);
+				break;
+			case SHIP_RESPAWN:
+				status.setNewShip(false);
+				newShip();
+				break;
+			case ASTEROID_EXPLOSION:
+				// bring the asteroids back
+				status.setNewAsteroid(false);
+				break;
+			default:
+				// the other timers only mark a time span, see isRunning
+				break;
+			}
+		}
+	};
+
+	/**
+	 * Starts, or restarts, a timer. It expires on the first step on which more than the given delay has
+	 * passed, counting in steps of the current length.
+	 * @param timer the timer
+	 * @param delayNanos the delay in nanoseconds
+	 */
+	private void startTimer(Timer timer, long delayNanos){
+		timers.start(timer.ordinal(), delayNanos / stepNanos + 1);
+	}
+
+	/**
+	 * Indicates if a timer has been started and has not expired yet.
+	 * @param timer the timer
+	 * @return if the timer is running
+	 */
+	private boolean isRunning(Timer timer){
+		return timers.isRunning(timer.ordinal());
+	}
+
+	/**
+	 * Check game or level ending conditions.
+	 */
+	private void checkConditions(){
+		// check game over conditions
+		if(!status.isGameOver() && status.isGameStarted()){
+			if(status.getShipsLeft() == 0){
+				gameOver();
+			}
+		}
+	}
+
+	/**
+	 * Actions to take when the game is over.
+	 */
+	private void gameOver(){
+		status.setGameStarted(false);
+		status.setGameOver(true);
+		startTimer(Timer.GAME_OVER, GAME_OVER_DELAY);
+		// there are no ships left to replace the one blown up
+		timers.stop(Timer.SHIP_RESPAWN.ordinal());
+		listener.gameOver();
+	}
+
+	/**
+	 * Move asteroids, bullets and enemies and check collisions.
+	 */
+	private void updateGame(){
+		// nothing moves while a message is displaying or before the game starts
+		if(status.isGameStarting() || status.isGameOver() || !status.isGameStarted()){
+			return;
+		}
+
+		long moveStart = System.nanoTime();
+
+		// move asteroids or enemy ships, and bring in the asteroids of the wave that are due
+		level = levels.getLevel(status.getAsteroidsDestroyed());
+		if(!asteroidsPaused()){
+			this.moveAsteroids();
+			spawnAsteroids();
+		}
+		// move the enemy ships and their bullets, and bring in the ones the level calls for
+		this.moveEnemyShips();
+
+		// move bullets
+		for(int i=0; i<bullets.size(); i++){
+			boolean remove = moveBullet(bullets.get(i));
+			if(remove){
+				// the last bullet takes this index; move it next
+				bullets.release(i);
+				i--;
+			}
+		}
+
+		long collisionStart = perf.record(PerfStats.Phase.MOVE, moveStart);
+
+		// bucket the asteroids, enemy ships and enemy bullets for collision checks
+		grid.clear();
+		for(int i=0;i<asteroids.size();i++){
+			if(asteroids.isAlive(i)){
+				grid.insert(i, asteroids.getX(i), asteroids.getY(i), asteroids.getWidth(i), asteroids.getHeight(i));
+			}
+		}
+		for(int i=0;i<enemyShips.size();i++){
+			grid.insert(FIRST_ENEMY_SHIP_ID - i, enemyShips.get(i));
+			BulletPool enemyBullets = enemyShips.getBullets(i);
+			for(int j=0;j<enemyBullets.size();j++){
+				grid.insert(FIRST_ENEMY_BULLET_ID - (i * EnemyFleet.BULLETS_PER_SHIP + j), enemyBullets.get(j));
+			}
+		}
+
+		// find the bullet-asteroid and bullet-enemyShip collisions, then the ship-asteroid,
+		// ship-enemyShip and enemybullet-ship ones, and apply them once all are found
+		pairCount = 0;
+		collisions.clear();
+		for(int i=0; i<bullets.size(); i++){
+			grid.query(i, bullets.get(i), bulletCollisions);
+		}
+		grid.query(0, ship, shipCollisions);
+		this.resolveCollisions();
+
+		// remove the bullets that hit something, last first so that
+		// the bullets moved into their place have not been hit
+		for(int i=bulletHits.length() - 1; i >= 0; i = bulletHits.previousSetBit(i - 1)){
+			bullets.release(i);
+		}
+		if(enemyBulletHit >= 0){
+			enemyShips.getBullets(enemyBulletHit / EnemyFleet.BULLETS_PER_SHIP)
+					.release(enemyBulletHit % EnemyFleet.BULLETS_PER_SHIP);
+		}
+
+		// take the enemy ships destroyed during this step out of play, last first so that
+		// the ships moved into their place have not been hit
+		for(int i=enemyShipHits.length() - 1; i >= 0; i = enemyShipHits.previousSetBit(i - 1)){
+			enemyShips.release(i);
+		}
+
+		// drop the asteroids destroyed or retired during this step
+		spawner.removeRetired();
+
+		perf.record(PerfStats.Phase.COLLISION, collisionStart);
+		perf.count(PerfStats.Counter.ENTITIES, grid.size() + bullets.size() + 1);
+		perf.count(PerfStats.Counter.PAIRS, pairCount);
+	}
+
+	/**
+	 * Checks the candidate collisions of a bullet, identified by its index in the bullet pool,
+	 * with an asteroid or an enemy ship, and records the ones that hit.
+	 */
+	private final SpatialGrid.PairCallback bulletCollisions = new SpatialGrid.PairCallback(){
+		public void pair(int bulletIndex, int id) {
+			pairCount++;
+			Bullet bullet = bullets.get(bulletIndex);
+			if(id >= 0){
+				if(asteroidHits(id, bullet, bulletMask)){
+					collisions.add(CollisionBuffer.Kind.BULLET_ASTEROID, bulletIndex, id);
+				}
+			}
+			else if(id > FIRST_ENEMY_BULLET_ID){
+				int i = FIRST_ENEMY_SHIP_ID - id;
+				if(hits(enemyShips.get(i), enemyShipMask, bullet, bulletMask)){
+					collisions.add(CollisionBuffer.Kind.BULLET_ENEMY_SHIP, bulletIndex, i);
+				}
+			}
+			// enemy bullets don't collide with the player's bullets
+		}
+	};
+
+	/**
+	 * Checks the candidate collisions of the ship with an asteroid, an enemy ship or an enemy bullet,
+	 * and records the ones that hit.
+	 */
+	private final SpatialGrid.PairCallback shipCollisions = new SpatialGrid.PairCallback(){
+		public void pair(int queryId, int id) {
+			pairCount++;
+			if(id >= 0){
+				if(asteroidHits(id, ship, shipMask)){
+					collisions.add(CollisionBuffer.Kind.SHIP_ASTEROID, queryId, id);
+				}
+			}
+			else if(id > FIRST_ENEMY_BULLET_ID){
+				int i = FIRST_ENEMY_SHIP_ID - id;
+				if(hits(enemyShips.get(i), enemyShipMask, ship, shipMask)){
+					collisions.add(CollisionBuffer.Kind.SHIP_ENEMY_SHIP, queryId, i);
+				}
+			}
+			else{
+				int bulletIndex = FIRST_ENEMY_BULLET_ID - id;
+				Bullet enemyBullet = enemyShips.getBullets(bulletIndex / EnemyFleet.BULLETS_PER_SHIP)
+						.get(bulletIndex % EnemyFleet.BULLETS_PER_SHIP);
+				if(hits(enemyBullet, bulletMask, ship, shipMask)){
+					collisions.add(CollisionBuffer.Kind.ENEMY_BULLET_SHIP, queryId, bulletIndex);
+				}
+			}
+		}
+	};
+
+	/**
+	 * Applies the collisions found during this step, in the order they were found. Each bullet can only
+	 * destroy one thing, each asteroid and enemy ship can only be destroyed once, and the ship can only be
+	 * destroyed once, so records whose entities were already used up by an earlier one are skipped.
+	 * The bullets, enemy ships and enemy bullet hit are marked in bulletHits, enemyShipHits and
+	 * enemyBulletHit, to be removed once all records are applied.
+	 */
+	private void resolveCollisions(){
+		bulletHits.clear();
+		enemyShipHits.clear();
+		enemyBulletHit = -1;
+		boolean shipHit = false;
+		for(int r=0; r<collisions.size(); r++){
+			int first = collisions.getFirst(r);
+			int second = collisions.getSecond(r);
+			switch(collisions.getKind(r)){
+			case BULLET_ASTEROID:
+				if(!bulletHits.get(first) && asteroids.isAlive(second)){
+					bulletHits.set(first);
+					BulletAsteroidCollision(second);
+				}
+				break;
+			case BULLET_ENEMY_SHIP:
+				if(!bulletHits.get(first) && !enemyShipHits.get(second)){
+					bulletHits.set(first);
+					BulletEnemyShipCollision(second);
+				}
+				break;
+			case SHIP_ASTEROID:
+				if(!shipHit && asteroids.isAlive(second)){
+					shipHit = true;
+					ShipAsteroidCollision(second);
+				}
+				break;
+			case SHIP_ENEMY_SHIP:
+				if(!shipHit && !enemyShipHits.get(second)){
+					shipHit = true;
+					ShipEnemyShipCollision(second);
+				}
+				break;
+			case ENEMY_BULLET_SHIP:
+				if(!shipHit){
+					shipHit = true;
+					enemyBulletHit = second;
+					EnemyBulletShipCollision();
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Fire bullets and move the ship according to the player's controls.
+	 * @param input the state of the player's controls
+	 */
+	private void handleInput(InputSnapshot input){
+		if(status.isGameStarted() && !status.isGameOver() && !status.isNewShip() && !status.isGameStarting()){
+			// fire bullet if space is pressed
+			if(input.isFire()){
+				// fire only up to 8 bullets per second
+				if(!isRunning(Timer.BULLET_COOLDOWN)){
+					startTimer(Timer.BULLET_COOLDOWN, BULLET_DELAY);
+					fireBullet();
+				}
+			}
+
+			ship.setSpeed(input.isBoost()? ship.getDefaultSpeed() * 2 : ship.getDefaultSpeed());
+			int distance = stepDistance(ship.getSpeed());
+
+			if(input.isUp() && ship.getY() - distance >= 0){
+				ship.translate(0, -distance);
+			}
+
+			if(input.isDown() && ship.getY() + distance + ship.height < height){
+				ship.translate(0, distance);
+			}
+
+			if(input.isLeft() && ship.getX() - distance >= 0){
+				ship.translate(-distance, 0);
+			}
+
+			if(input.isRight() && ship.getX() + distance + ship.width < width){
+				ship.translate(distance, 0);
+			}
+		}
+	}
+
+	/**
+	 * Returns how many pixels an entity moving at the given speed travels during the current step.
+	 * The speed is spread over the steps that make up 1/60th of a second so that no distance is lost
+	 * to rounding, e.g. a speed of 5 at 240 steps per second moves 1, 1, 1 and then 2 pixels.
+	 * @param speed the entity speed, in pixels per 1/60th of a second
+	 * @return the distance to move during the current step
+	 */
+	private int stepDistance(int speed){
+		long phase = tick % ticksPerBaseTick;
+		return (int) (Math.floorDiv(speed * (phase + 1), ticksPerBaseTick)
+				- Math.floorDiv(speed * phase, ticksPerBaseTick));
+	}
+
+	/**
+	 * Returns how many pixels an entity moving at the given speed travels during a fraction of a step.
+	 * Used to draw entities between steps.
+	 * @param speed the entity speed, in pixels per 1/60th of a second
+	 * @param alpha the fraction (0 to 1) of a step
+	 * @return the distance to draw the entity ahead of its position
+	 */
+	public int interpolatedDistance(int speed, float alpha){
+		return Math.round(speed * alpha / ticksPerBaseTick);
+	}
+
+	/**
+	 * Returns how many pixels an entity moving at the given velocity travels during a fraction of a step.
+	 * Used to draw entities between steps.
+	 * @param velocity the entity velocity, in 16.16 fixed point pixels per 1/60th of a second,
+	 * see {@link EntityStore#FIXED_SHIFT}
+	 * @param alpha the fraction (0 to 1) of a step
+	 * @return the distance to draw the entity ahead of its position
+	 */
+	public int interpolatedVelocityDistance(int velocity, float alpha){
+		return Math.round(velocity * alpha / (ticksPerBaseTick << EntityStore.FIXED_SHIFT));
+	}
+
+	/**
+	 * Fire a bullet from ship.
+	 */
+	private void fireBullet(){
+		Bullet bullet = bullets.acquire();
+		if(bullet == null){
+			// all bullets are on screen
+			return;
+		}
+		bullet.placeAbove(ship);
+		listener.bulletFired();
+	}
+
+	/**
+	 * Move a bullet once fired.
+	 * @param bullet the bullet to move
+	 * @return if the bullet should be removed from screen
+	 */
+	private boolean moveBullet(Bullet bullet){
+		int distance = stepDistance(bullet.getSpeed());
+		if(bullet.getY() - distance >= 0){
+			bullet.translate(0, -distance);
+			return false;
+		}
+		else{
+			return true;
+		}
+	}
+
+	/**
+	 * Moves the asteroids by their velocity, turns back the ones that reach the sides of the screen and
+	 * recycles the ones that reach the bottom.
+	 */
+	private void moveAsteroids(){
+		// may run in parallel for large waves; recycling draws random numbers, so it stays serial and in order
+		asteroids.integrate(ticksPerBaseTick, (int) (tick % ticksPerBaseTick), 0, width);
+		// asteroids spawned during the step are added at the end; they start moving on the next one
+		for(int i=0, count=asteroids.size(); i<count; i++){
+			if(asteroids.isAlive(i) && asteroids.getY(i) >= height){
+				spawner.recycle(i, level, getWaveSize());
+			}
+		}
+	}
+
+	/**
+	 * While an asteroid explosion is displaying the asteroids stay still and hidden, and no new ones spawn.
+	 * The asteroids come back when the explosion's timer expires.
+	 * @return if the asteroids should stay still this step
+	 */
+	private boolean asteroidsPaused(){
+		return status.isNewAsteroid();
+	}
+
+	/**
+	 * Spawns the asteroids of the current wave that are due this step.
+	 */
+	private void spawnAsteroids(){
+		long fillSteps = Math.round(level.getFillSeconds() * BASE_TICK_RATE * ticksPerBaseTick);
+		spawner.spawn(level, getWaveSize(), fillSteps);
+	}
+
+	/**
+	 * Returns the number of asteroids in the wave of the current level.
+	 * @return the wave size
+	 */
+	private int getWaveSize(){
+		return level.getAsteroidCount(asteroidCount);
+	}
+
+	/**
+	 * Moves the enemy ships and their bullets, and brings in a new ship, one at a time, while there are
+	 * fewer than the level calls for. Ships beyond that leave the next time they fly off screen.
+	 */
+	private void moveEnemyShips(){
+		int count = Math.min(level.getEnemyShipCount(), MAX_ENEMY_SHIPS);
+		enemyShips.retireExtra(count);
+		if(enemyShips.size() < count && !isRunning(Timer.ENEMY_SHIP_COOLDOWN)){
+			// create a new one
+			startTimer(Timer.ENEMY_SHIP_COOLDOWN, NEW_ENEMY_SHIP_DELAY);
+			status.setNewEnemyShip(false);
+			enemyShips.spawn(rand.nextLong(), ticksPerBaseTick);
+		}
+		// while the ship is being replaced it is parked off screen, so there is nothing to dive at
+		Ship target = status.isNewShip()? null : ship;
+		enemyShips.update(target, stepDistance(EnemyShip.DEFAULT_SPEED), stepDistance(Bullet.DEFAULT_SPEED),
+				ticksPerBaseTick);
+	}
+
+	/**
+	 * Checks if two sprites touch: first if their bounding boxes intersect, then, only if they do,
+	 * if any of their solid pixels overlap.
+	 * @param a the bounds of the first sprite
+	 * @param aMask the collision mask of the first sprite
+	 * @param b the bounds of the second sprite
+	 * @param bMask the collision mask of the second sprite
+	 * @return if the sprites touch
+	 */
+	private static boolean hits(Rectangle a, CollisionMask aMask, Rectangle b, CollisionMask bMask){
+		return a.intersects(b) && aMask.overlaps(a.x, a.y, bMask, b.x, b.y);
+	}
+
+	/**
+	 * Checks if an asteroid touches a sprite, like {@link #hits(Rectangle, CollisionMask, Rectangle, CollisionMask)}.
+	 * @param i the asteroid index
+	 * @param r the bounds of the sprite
+	 * @param mask the collision mask of the sprite
+	 * @return if the asteroid and the sprite touch
+	 */
+	private boolean asteroidHits(int i, Rectangle r, CollisionMask mask){
+		return asteroids.intersects(i, r) && asteroidMask.overlaps(asteroids.getX(i), asteroids.getY(i), mask, r.x, r.y);
+	}
+
+	/**
+	 * applies a collision between an asteroid and a bullet
+	 * @param i the index of the asteroid on screen
+	 */
+	private void BulletAsteroidCollision(int i){
+		// increase asteroids destroyed count
+		status.addAsteroidDestroyed();
+		status.addScore(150);
+		// "remove" asteroid
+		removeAsteroid(i);
+		if(levels.getLevel(status.getAsteroidsDestroyed()).isPause()) {
+			status.setNewAsteroid(true);
+		}
+		// play asteroid explosion sound
+		listener.asteroidExploded();
+	}
+
+	/**
+	 * applies a collision between an asteroid and the ship
+	 * @param i the index of the asteroid on screen
+	 */
+	private void ShipAsteroidCollision(int i){
+		// decrease number of ships left
+		status.loseShip();
+
+		status.addAsteroidDestroyed();
+
+		status.addScore(150);
+
+		// "remove" asteroid
+		removeAsteroid(i);
+		status.setNewAsteroid(true);
+
+		// "remove" ship
+		removeShip();
+
+		// play ship and asteroid explosion sounds
+		listener.shipExploded();
+		listener.asteroidExploded();
+	}
+
+	/**
+	 * Applies a collision between an enemy ship and a bullet
+	 * @param i the index of the enemy ship in the fleet
+	 */
+	private void BulletEnemyShipCollision(int i){
+		EnemyShip enemyShip = enemyShips.get(i);
+		//increase score
+		status.addScore(300);
+		// "remove" enemyShip
+		enemyShipHits.set(i);
+		startTimer(Timer.ENEMY_SHIP_COOLDOWN, NEW_ENEMY_SHIP_DELAY);
+		status.setNewEnemyShip(true);
+		listener.exploded(SimulationListener.Explosion.ENEMY_SHIP, enemyShip.x, enemyShip.y, enemyShip.width, enemyShip.height);
+
+		// play enemy ship explosion sound
+		listener.enemyShipExploded();
+	}
+
+	/**
+	 * applies a collision between an enemy ship and the player's ship
+	 * @param i the index of the enemy ship in the fleet
+	 */
+	private void ShipEnemyShipCollision(int i){
+		EnemyShip enemyShip = enemyShips.get(i);
+		// decrease number of ships left
+		status.loseShip();
+		// increase score
+		status.addScore(300);
+
+		// "remove" enemyShip
+		enemyShipHits.set(i);
+		startTimer(Timer.ENEMY_SHIP_COOLDOWN, NEW_ENEMY_SHIP_DELAY);
+		// the enemy ship pauses the asteroids like an asteroid explosion
+		status.setNewAsteroid(true);
+		startTimer(Timer.ASTEROID_EXPLOSION, NEW_ASTEROID_DELAY);
+		listener.exploded(SimulationListener.Explosion.ENEMY_SHIP, enemyShip.x, enemyShip.y, enemyShip.width, enemyShip.height);
+
+		// "remove" ship
+		removeShip();
+		status.setNewEnemyShip(true);
+
+		// play ship explosion sound
+		listener.shipExploded();
+	}
+
+	/**
+	 * applies a collision between an enemy bullet and the player's ship
+	 */
+	private void EnemyBulletShipCollision(){
+		// decrease number of ships left
+		status.loseShip();
+
+		// "remove" ship
+		removeShip();
+
+		// play ship explosion sound
+		listener.shipExploded();
+	}
+
+	/**
+	 * Replaces the ship by an explosion, and moves it off screen until a new one replaces it.
+	 */
+	private void removeShip(){
+		listener.exploded(SimulationListener.Explosion.SHIP, ship.x, ship.y, ship.width, ship.height);
+		ship.setLocation(width + ship.width, -ship.height);
+		status.setNewShip(true);
+		startTimer(Timer.SHIP_RESPAWN, NEW_SHIP_DELAY);
+	}
+
+	/**
+	 * Create a new ship (and replace current one).
+	 */
+	private Ship newShip(){
+		this.ship = new Ship(width, height);
+		return ship;
+	}
+
+	/**
+	 * Replaces a destroyed asteroid by an explosion. The asteroid is removed at the end of the step,
+	 * and the wave spawner brings in a new one.
+	 * @param i the asteroid index
+	 */
+	private void removeAsteroid(int i){
+		listener.exploded(SimulationListener.Explosion.ASTEROID, asteroids.getX(i), asteroids.getY(i),
+				asteroids.getWidth(i), asteroids.getHeight(i));
+		startTimer(Timer.ASTEROID_EXPLOSION, NEW_ASTEROID_DELAY);
+		spawner.retire(i);
+	}
+
+	/**
+	 * Returns how many asteroids are on screen. The wave spawner grows and shrinks the asteroid field
+	 * towards the size of the wave of each level.
+	 * @return the number of asteroids, from the start of {@link #getAsteroids()}, that are on screen
+	 */
+	public int getActiveAsteroidCount(){
+		return asteroids.size();
+	}
+
+	/**
+	 * Indicates if enemy ships have joined the game.
+	 * @return if any enemy ship is in play
+	 */
+	public boolean isEnemyShipActive(){
+		return enemyShips.size() > 0;
+	}
+
+	/**
+	 * Returns the game status
+	 * @return the game status
+	 */
+	public GameStatus getStatus() {return status;}
+
+	/**
+	 * Returns the seed of all the randomness in the game.
+	 * @return the random seed
+	 */
+	public long getSeed() {return seed;}
+
+	/**
+	 * Returns the statistics that step timings and counters are recorded in.
+	 * @return the performance statistics
+	 */
+	public PerfStats getPerfStats() {return perf;}
+
+	/**
+	 * Returns the width of the play field.
+	 * @return the width of the play field
+	 */
+	public int getWidth() {return width;}
+
+	/**
+	 * Returns the height of the play field.
+	 * @return the height of the play field
+	 */
+	public int getHeight() {return height;}
+
+	/**
+	 * Returns the simulation clock.
+	 * @return the simulated time elapsed, in nanoseconds
+	 */
+	public long getTime() {return time;}
+
+	/**
+	 * Returns the ship.
+	 * @return the ship
+	 */
+	public Ship getShip() {return ship;}
+
+	/**
+	 * Returns the bullets fired by the ship.
+	 * @return the pool of bullets
+	 */
+	public BulletPool getBullets() {return bullets;}
+
+	/**
+	 * Returns the asteroids. Dead asteroids are off screen and should not be drawn.
+	 * @return the asteroid store
+	 */
+	public EntityStore getAsteroids(){return asteroids;}
+
+	/**
+	 * returns the enemy ships, with their bullets
+	 * @return the enemy fleet
+	 */
+	public EnemyFleet getEnemyShips(){return enemyShips;}
+}
@@ -0,0 +1,62 @@
+package rbadia.voidspace.simulation;
+
+/**
+ * Receives notifications of game events from a {@link Simulation}, e.g. to play sounds or update the screen.
+ * All methods do nothing by default, so headless runs can ignore the events they don't need.
+ */
+public interface SimulationListener {
+
+	/**
+	 * What blew up, see {@link #exploded(Explosion, int, int, int, int)}.
+	 */
+	enum Explosion {
+		/** An asteroid, shot down or hit by the player's ship. */
+		ASTEROID,
+		/** The player's ship. */
+		SHIP,
+		/** An enemy ship, shot down or hit by the player's ship. */
+		ENEMY_SHIP
+	}
+
+	/**
+	 * Called when a new game has been prepared and the "Get Ready" message starts displaying.
+	 */
+	default void newGameStarted() {}
+
+	/**
+	 * Called when the player's ship fires a bullet.
+	 */
+	default void bulletFired() {}
+
+	/**
+	 * Called when an asteroid is destroyed.
+	 */
+	default void asteroidExploded() {}
+
+	/**
+	 * Called when the player's ship is destroyed.
+	 */
+	default void shipExploded() {}
+
+	/**
+	 * Called when the enemy ship is destroyed.
+	 */
+	default void enemyShipExploded() {}
+
+	/**
+	 * Called for every asteroid and ship that blows up, with where it was, e.g. to show the explosion.
+	 * Called along with {@link #asteroidExploded()}, {@link #shipExploded()} or {@link #enemyShipExploded()}
+	 * where those apply.
+	 * @param what what blew up
+	 * @param x the x coordinate of what blew up
+	 * @param y the y coordinate of what blew up
+	 * @param width the width of what blew up
+	 * @param height the height of what blew up
+	 */
+	default void exploded(Explosion what, int x, int y, int width, int height) {}
+
+	/**
+	 * Called when the player has run out of ships and the game is over.
+	 */
+	default void gameOver() {}
+}
@@ -0,0 +1,181 @@
+package rbadia.voidspace.simulation;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Uniform grid broadphase for collision detection. Entity bounds are bucketed into fixed-size cells
+ * once per step; a query then only tests the entities that share a cell with the queried bounds,
+ * instead of every entity on screen.
+ * <p>
+ * The grid keeps its storage between steps: {@link #clear()} empties it without freeing anything,
+ * and the arrays only grow when more entities are inserted than ever before.
+ * Entities outside the play field are kept in the nearest border cells.
+ */
+public class SpatialGrid {
+
+	/**
+	 * Receives the candidate pairs found by a query.
+	 */
+	public interface PairCallback {
+		/**
+		 * Called once for every inserted entity whose bounds intersect the queried bounds.
+		 * @param queryId the id passed to the query
+		 * @param id the id the intersecting entity was inserted with
+		 */
+		void pair(int queryId, int id);
+	}
+
+	private final int cellSize;
+	private final int columns;
+	private final int rows;
+
+	// first entry of each cell, or -1; entries of a cell are linked through entryNext
+	private final int[] cellHeads;
+	private int[] entryNext = new int[64];
+	private int[] entryItem = new int[64];
+	private int entryCount;
+
+	// inserted entities and their bounds
+	private int[] itemId = new int[64];
+	private int[] itemX = new int[64];
+	private int[] itemY = new int[64];
+	private int[] itemRight = new int[64];
+	private int[] itemBottom = new int[64];
+	private int itemCount;
+
+	/**
+	 * Creates a new, empty grid covering the play field.
+	 * @param width the width of the play field
+	 * @param height the height of the play field
+	 * @param cellSize the width and height of each cell; about twice the size of the largest entity works well
+	 */
+	public SpatialGrid(int width, int height, int cellSize){
+		this.cellSize = cellSize;
+		this.columns = Math.max(1, (width + cellSize - 1) / cellSize);
+		this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+		this.cellHeads = new int[columns * rows];
+		clear();
+	}
+
+	/**
+	 * Removes all entities from the grid.
+	 */
+	public void clear(){
+		Arrays.fill(cellHeads, -1);
+		entryCount = 0;
+		itemCount = 0;
+	}
+
+	/**
+	 * Adds an entity to the grid.
+	 * @param id the id reported for this entity by queries
+	 * @param bounds the entity bounds
+	 */
+	public void insert(int id, Rectangle bounds){
+		insert(id, bounds.x, bounds.y, bounds.width, bounds.height);
+	}
+
+	/**
+	 * Adds an entity to the grid.
+	 * @param id the id reported for this entity by queries
+	 * @param x the x coordinate of the entity bounds
+	 * @param y the y coordinate of the entity bounds
+	 * @param width the width of the entity bounds
+	 * @param height the height of the entity bounds
+	 */
+	public void insert(int id, int x, int y, int width, int height){
+		if(width <= 0 || height <= 0){
+			return;
+		}
+		if(itemCount == itemId.length){
+			int capacity = itemCount * 2;
+			itemId = Arrays.copyOf(itemId, capacity);
+			itemX = Arrays.copyOf(itemX, capacity);
+			itemY = Arrays.copyOf(itemY, capacity);
+			itemRight = Arrays.copyOf(itemRight, capacity);
+			itemBottom = Arrays.copyOf(itemBottom, capacity);
+		}
+		int item = itemCount++;
+		itemId[item] = id;
+		itemX[item] = x;
+		itemY[item] = y;
+		itemRight[item] = x + width;
+		itemBottom[item] = y + height;
+
+		int lastColumn = column(x + width - 1);
+		int lastRow = row(y + height - 1);
+		for(int cy = row(y); cy <= lastRow; cy++){
+			for(int cx = column(x); cx <= lastColumn; cx++){
+				if(entryCount == entryNext.length){
+					entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+					entryItem = Arrays.copyOf(entryItem, entryCount * 2);
+				}
+				int cell = cy * columns + cx;
+				entryItem[entryCount] = item;
+				entryNext[entryCount] = cellHeads[cell];
+				cellHeads[cell] = entryCount++;
+			}
+		}
+	}
+
+	/**
+	 * Reports every inserted entity whose bounds intersect the given bounds.
+	 * @param queryId the id passed back to the callback, e.g. the index of the queried entity
+	 * @param bounds the bounds to test
+	 * @param callback receives the intersecting entities
+	 */
+	public void query(int queryId, Rectangle bounds, PairCallback callback){
+		query(queryId, bounds.x, bounds.y, bounds.width, bounds.height, callback);
+	}
+
+	/**
+	 * Reports every inserted entity whose bounds intersect the given bounds.
+	 * Each entity is reported once, even if it shares several cells with the bounds.
+	 * @param queryId the id passed back to the callback, e.g. the index of the queried entity
+	 * @param x the x coordinate of the bounds to test
+	 * @param y the y coordinate of the bounds to test
+	 * @param width the width of the bounds to test
+	 * @param height the height of the bounds to test
+	 * @param callback receives the intersecting entities
+	 */
+	public void query(int queryId, int x, int y, int width, int height, PairCallback callback){
+		if(width <= 0 || height <= 0){
+			return;
+		}
+		int right = x + width;
+		int bottom = y + height;
+		int lastColumn = column(right - 1);
+		int lastRow = row(bottom - 1);
+		for(int cy = row(y); cy <= lastRow; cy++){
+			for(int cx = column(x); cx <= lastColumn; cx++){
+				for(int e = cellHeads[cy * columns + cx]; e != -1; e = entryNext[e]){
+					int item = entryItem[e];
+					if(x < itemRight[item] && itemX[item] < right && y < itemBottom[item] && itemY[item] < bottom){
+						// a pair sharing several cells is only reported from the cell
+						// holding the top left corner of the overlap
+						if(column(Math.max(x, itemX[item])) == cx && row(Math.max(y, itemY[item])) == cy){
+							callback.pair(queryId, itemId[item]);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of entities inserted since the last {@link #clear()}.
+	 * @return the number of entities in the grid
+	 */
+	public int size(){
+		return itemCount;
+	}
+
+	private int column(int x){
+		return Math.min(columns - 1, Math.max(0, Math.floorDiv(x, cellSize)));
+	}
+
+	private int row(int y){
+		return Math.min(rows - 1, Math.max(0, Math.floorDiv(y, cellSize)));
+	}
+}
@@ -0,0 +1,137 @@
+package rbadia.voidspace.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timer wheel counting simulation steps. Each timer, identified by a small index, is either
+ * stopped or set to expire after a number of steps; {@link #advance(ExpiryCallback)} moves the wheel on
+ * by one step and reports the timers that expire on it.
+ * <p>
+ * A timer lives in the slot of the step it expires on, modulo the number of slots, linked with the
+ * other timers of that slot through index arrays. Setting, restarting and stopping a timer take
+ * constant time, and a step only looks at the timers of one slot. Timers further away than a turn of
+ * the wheel wait in their slot until their step comes round. Nothing is allocated after construction.
+ * <p>
+ * The wheel only knows steps, not time, so it runs on the simulation clock: it stays in step with
+ * fixed-step updates, pauses, and replays run faster than real time.
+ */
+class TimerWheel {
+	/**
+	 * Receives the timers that expire on a step.
+	 */
+	interface ExpiryCallback {
+		/**
+		 * Called once for every timer that expires. The timer is already stopped, and may be set again.
+		 * @param timer the index of the timer
+		 */
+		void expired(int timer);
+	}
+
+	private final int mask;
+	// first timer of each slot, or -1; timers of a slot are linked through next and previous
+	private final int[] slotHead;
+	private final int[] next;
+	private final int[] previous;
+	// step each timer expires on, or -1 if it is stopped
+	private final long[] deadline;
+	// timers that expired on the current step, reported once they are all unlinked
+	private final int[] expired;
+	private long now;
+
+	/**
+	 * Creates a new wheel with all timers stopped.
+	 * @param timers the number of timers, indexed from 0
+	 * @param slots the number of slots, a power of two; about the longest delay in steps works well
+	 */
+	TimerWheel(int timers, int slots){
+		if(Integer.bitCount(slots) != 1){
+			throw new IllegalArgumentException("The number of slots must be a power of two: " + slots);
+		}
+		mask = slots - 1;
+		slotHead = new int[slots];
+		next = new int[timers];
+		previous = new int[timers];
+		deadline = new long[timers];
+		expired = new int[timers];
+		clear();
+	}
+
+	/**
+	 * Stops all timers.
+	 */
+	void clear(){
+		Arrays.fill(slotHead, -1);
+		Arrays.fill(deadline, -1);
+	}
+
+	/**
+	 * Sets a timer to expire after the given number of steps, restarting it if it is running.
+	 * @param timer the index of the timer
+	 * @param steps the number of calls to {@link #advance(ExpiryCallback)} after which the timer expires, at least 1
+	 */
+	void start(int timer, long steps){
+		if(steps < 1){
+			throw new IllegalArgumentException("A timer must run for at least one step: " + steps);
+		}
+		stop(timer);
+		long step = now + steps;
+		int slot = (int) (step & mask);
+		deadline[timer] = step;
+		previous[timer] = -1;
+		next[timer] = slotHead[slot];
+		if(slotHead[slot] >= 0){
+			previous[slotHead[slot]] = timer;
+		}
+		slotHead[slot] = timer;
+	}
+
+	/**
+	 * Stops a timer, if it is running.
+	 * @param timer the index of the timer
+	 */
+	void stop(int timer){
+		if(deadline[timer] < 0){
+			return;
+		}
+		if(previous[timer] >= 0){
+			next[previous[timer]] = next[timer];
+		}
+		else{
+			slotHead[(int) (deadline[timer] & mask)] = next[timer];
+		}
+		if(next[timer] >= 0){
+			previous[next[timer]] = previous[timer];
+		}
+		deadline[timer] = -1;
+	}
+
+	/**
+	 * Indicates if a timer is running, i.e. it was started and has neither expired nor been stopped.
+	 * @param timer the index of the timer
+	 * @return if the timer is running
+	 */
+	boolean isRunning(int timer){
+		return deadline[timer] >= 0;
+	}
+
+	/**
+	 * Moves the wheel on by one step, and stops and reports the timers that expire on it.
+	 * @param callback receives the timers that expired
+	 */
+	void advance(ExpiryCallback callback){
+		now++;
+		int count = 0;
+		for(int timer = slotHead[(int) (now & mask)]; timer >= 0; timer = next[timer]){
+			if(deadline[timer] == now){
+				expired[count++] = timer;
+			}
+		}
+		// stop them all first, so the callback can set timers of this slot again
+		for(int i=0; i<count; i++){
+			stop(expired[i]);
+		}
+		for(int i=0; i<count; i++){
+			callback.expired(expired[i]);
+		}
+	}
+}
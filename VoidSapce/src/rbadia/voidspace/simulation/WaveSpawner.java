@@ -0,0 +1,133 @@
+package rbadia.voidspace.simulation;
+
+import java.util.Random;
+
+import rbadia.voidspace.model.Asteroid;
+import rbadia.voidspace.model.EntityStore;
+
+/**
+ * Grows and shrinks the asteroid field towards the size of the current wave, a few asteroids per step.
+ * <p>
+ * Missing asteroids spawn at the top of the screen at the rate of the level, so that a whole wave takes
+ * its fill time to appear. Surplus asteroids, e.g. after moving on to a smaller wave, are retired when
+ * they reach the bottom of the screen instead of coming back at the top. Asteroids that are destroyed or
+ * retired are only killed during a step, and removed from the store at the end of it by
+ * {@link #removeRetired()}, so asteroid indexes stay stable while collisions are checked.
+ */
+class WaveSpawner {
+	private final EntityStore asteroids;
+	private final Random rand;
+	private final int width;
+
+	// asteroids killed during this step, still in the store
+	private int retired;
+	// spawns owed, in wave-sized units: an asteroid spawns for every fill time's worth of steps
+	private long credit;
+
+	/**
+	 * Creates a new spawner.
+	 * @param asteroids the asteroids to spawn into
+	 * @param rand the random source of the simulation
+	 * @param width the width of the play field
+	 */
+	WaveSpawner(EntityStore asteroids, Random rand, int width){
+		this.asteroids = asteroids;
+		this.rand = rand;
+		this.width = width;
+	}
+
+	/**
+	 * Removes all asteroids, and lets the first one of the next wave spawn at once.
+	 */
+	void reset(){
+		asteroids.clear();
+		retired = 0;
+		credit = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the number of asteroids that have not been destroyed or retired.
+	 * @return the number of live asteroids
+	 */
+	int getLiveCount(){
+		return asteroids.size() - retired;
+	}
+
+	/**
+	 * Spawns the asteroids of a wave that are due this step.
+	 * @param level the current level
+	 * @param target the number of asteroids in the wave
+	 * @param fillSteps the steps that spawning a whole wave takes, or 0 to spawn it at once
+	 */
+	void spawn(Level level, int target, long fillSteps){
+		int missing = target - getLiveCount();
+		if(missing <= 0){
+			// nothing is owed while the wave is full; a missing asteroid comes back at the spawn rate
+			credit = Math.min(credit, 0);
+			return;
+		}
+		int count = missing;
+		if(fillSteps > 0){
+			credit = Math.min(credit, fillSteps) + target;
+			count = (int) Math.min(missing, credit / fillSteps);
+			credit -= count * fillSteps;
+		}
+		for(int i=0; i<count; i++){
+			int asteroid = asteroids.add(rand.nextInt(width - Asteroid.ASTEROID_WIDTH), 0,
+					Asteroid.ASTEROID_WIDTH, Asteroid.ASTEROID_HEIGHT, level.getSpeed());
+			asteroids.setVelocity(asteroid, sidewaysVelocity(level), level.getSpeed() << EntityStore.FIXED_SHIFT);
+		}
+	}
+
+	/**
+	 * Handles an asteroid that reached the bottom of the screen: it comes back at a random x location
+	 * at the top, with a new velocity, unless the field is larger than the wave, in which case it is retired.
+	 * @param i the asteroid index
+	 * @param level the current level
+	 * @param target the number of asteroids in the wave
+	 */
+	void recycle(int i, Level level, int target){
+		if(getLiveCount() > target){
+			retire(i);
+			return;
+		}
+		asteroids.setLocation(i, rand.nextInt(width - asteroids.getWidth(i)), 0);
+		asteroids.setSpeed(i, level.getSpeed());
+		asteroids.setVelocity(i, sidewaysVelocity(level), level.getSpeed() << EntityStore.FIXED_SHIFT);
+	}
+
+	/**
+	 * Picks the sideways velocity of an asteroid entering the screen: none for straight waves, or a random one
+	 * up to the drift of the level either way for zigzag waves.
+	 * @param level the current level
+	 * @return the velocity, in 16.16 fixed point pixels per 1/60th of a second
+	 */
+	private int sidewaysVelocity(Level level){
+		if(level.getPattern() != Level.Pattern.ZIGZAG || level.getDrift() == 0){
+			return 0;
+		}
+		int drift = level.getDrift() << EntityStore.FIXED_SHIFT;
+		return rand.nextInt(2 * drift + 1) - drift;
+	}
+
+	/**
+	 * Kills an asteroid; it is removed from the store at the end of the step.
+	 * @param i the asteroid index
+	 */
+	void retire(int i){
+		if(asteroids.isAlive(i)){
+			asteroids.kill(i);
+			retired++;
+		}
+	}
+
+	/**
+	 * Removes the asteroids killed during the step. Should be called at the end of each step.
+	 */
+	void removeRetired(){
+		if(retired > 0){
+			asteroids.removeDead();
+			retired = 0;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package rbadia.voidspace.sounds;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of sound play requests. Any number of threads may offer requests;
+ * a single thread (the mixer) polls them. Nothing is allocated after construction.
+ * <p>
+ * Each slot has a sequence number telling whether it is free for the producer claiming it
+ * or holds a request for the consumer.
+ */
+class PlayQueue {
+	private final int[] items;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private final int mask;
+	// only read and written by the consumer thread
+	private long head;
+
+	/**
+	 * Creates a new, empty queue.
+	 * @param capacity the most requests waiting at once; must be a power of two
+	 */
+	PlayQueue(int capacity){
+		if(Integer.bitCount(capacity) != 1){
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		items = new int[capacity];
+		sequences = new AtomicLongArray(capacity);
+		for(int i=0; i<capacity; i++){
+			sequences.set(i, i);
+		}
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Adds a request to the queue.
+	 * @param item the request
+	 * @return false if the queue is full and the request was dropped
+	 */
+	boolean offer(int item){
+		long position;
+		while(true){
+			position = tail.get();
+			long sequence = sequences.get((int) position & mask);
+			if(sequence == position){
+				if(tail.compareAndSet(position, position + 1)){
+					break;
+				}
+			}
+			else if(sequence < position){
+				return false;
+			}
+		}
+		int slot = (int) position & mask;
+		items[slot] = item;
+		// publish the item to the consumer
+		sequences.lazySet(slot, position + 1);
+		return true;
+	}
+
+	/**
+	 * Removes the oldest request from the queue. Must only be called from the consumer thread.
+	 * @return the request, or -1 if the queue is empty
+	 */
+	int poll(){
+		int slot = (int) head & mask;
+		if(sequences.get(slot) != head + 1){
+			return -1;
+		}
+		int item = items[slot];
+		// hand the slot back to the producers
+		sequences.lazySet(slot, head + items.length);
+		head++;
+		return item;
+	}
+}
@@ -1,54 +1,88 @@
 package rbadia.voidspace.sounds;
 
-import java.applet.Applet;
-import java.applet.AudioClip;
-
 import rbadia.voidspace.main.GameScreen;
 
 /**
  * Manages and plays the game's sounds.
+ * All sounds are decoded once and played through a single {@link SoundMixer},
+ * so playing a sound never starts a thread or blocks the caller.
  */
 public class SoundManager {
 	private static final boolean SOUND_ON = true;
 
-    private AudioClip shipExplosionSound = Applet.newAudioClip(GameScreen.class.getResource(
-    "/rbadia/voidspace/sounds/shipExplosion.wav"));
-    private AudioClip bulletSound = Applet.newAudioClip(GameScreen.class.getResource(
-    "/rbadia/voidspace/sounds/laser.wav"));
-    
-    /**
-     * Plays sound for bullets fired by the ship.
-     */
-    public void playBulletSound(){
-    	if(SOUND_ON){
-    		new Thread(new Runnable(){
-    			public void run() {
-    				bulletSound.play();
-    			}
-    		}).start();
-    	}
-    }
-    
-    /**
-     * Plays sound for ship explosions.
-     */
-    public void playShipExplosionSound(){
-    	if(SOUND_ON){
-    		new Thread(new Runnable(){
-    			public void run() {
-    				shipExplosionSound.play();
-    			}
-    		}).start();
-    	}
-    }
-    
-    /**
-     * Plays sound for asteroid explosions.
-     */
-    public void playAsteroidExplosionSound(){
-		// play sound for asteroid explosions
-    	if(SOUND_ON){
-    		
-    	}
-    }
+	private static final int BULLET_SOUND = 0;
+	private static final int SHIP_EXPLOSION_SOUND = 1;
+	private static final int ASTEROID_EXPLOSION_SOUND = 2;
+
+	private SoundMixer mixer;
+
+	/**
+	 * Creates a new sound manager and starts the sound mixer. If the sounds can not be loaded or
+	 * there is no audio device, the game runs without sound.
+	 */
+	public SoundManager(){
+		this(SOUND_ON);
+	}
+
+	private SoundManager(boolean soundOn){
+		if(!soundOn){
+			return;
+		}
+		try{
+			short[] shipExplosion = SoundMixer.load(GameScreen.class.getResource(
+					"/rbadia/voidspace/sounds/shipExplosion.wav"), 1f, 1f);
+			short[] bullet = SoundMixer.load(GameScreen.class.getResource(
+					"/rbadia/voidspace/sounds/laser.wav"), 1f, 1f);
+			// asteroids use a shorter, higher and quieter version of the ship explosion
+			short[] asteroidExplosion = SoundMixer.load(GameScreen.class.getResource(
+					"/rbadia/voidspace/sounds/shipExplosion.wav"), 1.5f, 0.6f);
+
+			short[][] sounds = new short[3][];
+			sounds[BULLET_SOUND] = bullet;
+			sounds[SHIP_EXPLOSION_SOUND] = shipExplosion;
+			sounds[ASTEROID_EXPLOSION_SOUND] = asteroidExplosion;
+			SoundMixer mixer = new SoundMixer(sounds);
+			mixer.start();
+			this.mixer = mixer;
+		}
+		catch(Exception e){
+			System.err.println("Sound disabled: " + e);
+		}
+	}
+
+	/**
+	 * Creates a sound manager that plays nothing. It loads no sounds and starts no mixer thread, for
+	 * games nobody listens to, e.g. in benchmarks.
+	 * @return the silent sound manager
+	 */
+	public static SoundManager silent(){
+		return new SoundManager(false);
+	}
+
+	/**
+	 * Plays sound for bullets fired by the ship.
+	 */
+	public void playBulletSound(){
+		play(BULLET_SOUND);
+	}
+
+	/**
+	 * Plays sound for ship explosions.
+	 */
+	public void playShipExplosionSound(){
+		play(SHIP_EXPLOSION_SOUND);
+	}
+
+	/**
+	 * Plays sound for asteroid explosions.
+	 */
+	public void playAsteroidExplosionSound(){
+		play(ASTEROID_EXPLOSION_SOUND);
+	}
+
+	private void play(int sound){
+		if(mixer != null){
+			mixer.play(sound);
+		}
+	}
 }
@@ -0,0 +1,177 @@
+package rbadia.voidspace.sounds;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Plays the game's sounds through a single audio line, from a single thread.
+ * Sounds are decoded into 16-bit samples once; overlapping sounds are mixed in software,
+ * up to a fixed number of voices. Play requests are passed to the mixer thread through a lock-free queue.
+ */
+public class SoundMixer implements Runnable {
+	/**
+	 * Sample rate all sounds are converted to and played at.
+	 */
+	public static final float SAMPLE_RATE = 22050f;
+
+	private static final int MAX_VOICES = 8;
+	// frames mixed at a time; about 23ms of sound
+	private static final int BUFFER_FRAMES = 512;
+
+	private final short[][] sounds;
+	private final PlayQueue requests = new PlayQueue(64);
+
+	// mixer thread state
+	private final int[] voiceSound = new int[MAX_VOICES];
+	private final int[] voicePosition = new int[MAX_VOICES];
+	private int voices;
+	private final int[] mix = new int[BUFFER_FRAMES];
+	private final byte[] buffer = new byte[BUFFER_FRAMES * 2];
+	private SourceDataLine line;
+
+	/**
+	 * Creates a new mixer for the given sounds.
+	 * @param sounds the sound samples, as returned by {@link #load(URL, float, float)}; a sound's index is its id
+	 */
+	public SoundMixer(short[][] sounds){
+		this.sounds = sounds;
+	}
+
+	/**
+	 * Opens the audio line and starts the mixer thread.
+	 * @throws LineUnavailableException if no audio line is available
+	 */
+	public void start() throws LineUnavailableException{
+		AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+		line = AudioSystem.getSourceDataLine(format);
+		line.open(format, buffer.length * 4);
+		line.start();
+
+		Thread thread = new Thread(this, "Sound mixer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Requests a sound to be played. Never blocks; the request is dropped if too many are waiting.
+	 * @param sound the id of the sound
+	 */
+	public void play(int sound){
+		requests.offer(sound);
+	}
+
+	/**
+	 * Mixes the playing sounds and writes them to the audio line. Should be called by the mixer thread.
+	 */
+	public void run() {
+		while(true){
+			for(int sound = requests.poll(); sound >= 0; sound = requests.poll()){
+				startVoice(sound);
+			}
+
+			Arrays.fill(mix, 0);
+			for(int v=0; v<voices; v++){
+				short[] samples = sounds[voiceSound[v]];
+				int position = voicePosition[v];
+				int frames = Math.min(BUFFER_FRAMES, samples.length - position);
+				for(int i=0; i<frames; i++){
+					mix[i] += samples[position + i];
+				}
+				voicePosition[v] = position + frames;
+			}
+			// drop the voices that are done
+			for(int v=voices - 1; v>=0; v--){
+				if(voicePosition[v] >= sounds[voiceSound[v]].length){
+					voices--;
+					voiceSound[v] = voiceSound[voices];
+					voicePosition[v] = voicePosition[voices];
+				}
+			}
+
+			for(int i=0; i<BUFFER_FRAMES; i++){
+				int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+				buffer[2*i] = (byte) sample;
+				buffer[2*i + 1] = (byte) (sample >> 8);
+			}
+			// blocks until the line has room, which paces the mixer
+			line.write(buffer, 0, buffer.length);
+		}
+	}
+
+	/**
+	 * Starts playing a sound, replacing the voice that has played the longest if all voices are busy.
+	 * @param sound the id of the sound
+	 */
+	private void startVoice(int sound){
+		if(sound >= sounds.length){
+			return;
+		}
+		int v = voices;
+		if(voices == MAX_VOICES){
+			v = 0;
+			for(int i=1; i<voices; i++){
+				if(voicePosition[i] > voicePosition[v]){
+					v = i;
+				}
+			}
+		}
+		else{
+			voices++;
+		}
+		voiceSound[v] = sound;
+		voicePosition[v] = 0;
+	}
+
+	/**
+	 * Decodes a sound file into 16-bit mono samples at {@link #SAMPLE_RATE}.
+	 * @param resource the sound file
+	 * @param pitch playback speed; values above 1 make the sound shorter and higher
+	 * @param volume volume factor, from 0 to 1
+	 * @return the sound samples
+	 * @throws IOException if the file can not be read
+	 * @throws UnsupportedAudioFileException if the file is not a supported sound file
+	 */
+	public static short[] load(URL resource, float pitch, float volume) throws IOException, UnsupportedAudioFileException{
+		AudioInputStream source = AudioSystem.getAudioInputStream(resource);
+		AudioFormat sourceFormat = source.getFormat();
+		AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16, sourceFormat.getChannels(), true, false);
+		AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, source);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] chunk = new byte[4096];
+		for(int n = pcm.read(chunk); n > 0; n = pcm.read(chunk)){
+			bytes.write(chunk, 0, n);
+		}
+		pcm.close();
+
+		// little endian 16-bit samples, first channel only
+		byte[] data = bytes.toByteArray();
+		int channels = pcmFormat.getChannels();
+		short[] decoded = new short[data.length / (2 * channels)];
+		for(int i=0; i<decoded.length; i++){
+			int offset = i * 2 * channels;
+			decoded[i] = (short) ((data[offset] & 0xff) | (data[offset + 1] << 8));
+		}
+
+		// resample with linear interpolation
+		double step = pcmFormat.getSampleRate() * pitch / SAMPLE_RATE;
+		short[] samples = new short[(int) (decoded.length / step)];
+		for(int i=0; i<samples.length; i++){
+			double position = i * step;
+			int index = (int) position;
+			double fraction = position - index;
+			int next = Math.min(index + 1, decoded.length - 1);
+			double sample = decoded[index] * (1 - fraction) + decoded[next] * fraction;
+			samples[i] = (short) (sample * volume);
+		}
+		return samples;
+	}
+}
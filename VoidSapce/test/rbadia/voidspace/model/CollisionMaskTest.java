@@ -0,0 +1,118 @@
+package rbadia.voidspace.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link CollisionMask#overlaps(int, int, CollisionMask, int, int)} against a pixel by pixel check.
+ */
+public class CollisionMaskTest {
+	// x offsets around the 64 pixel words a row is packed in, either way
+	private static final int[] WORD_OFFSETS = {0, 1, 62, 63, 64, 65, 127, 128, 129};
+
+	@Test
+	public void overlapsMatchesPixelCheckAtWordBoundaries(){
+		Random random = new Random(1);
+		// wider than two words, so rows span three of them
+		CollisionMask a = randomMask(random, 150, 9, 0.1);
+		CollisionMask b = randomMask(random, 70, 7, 0.1);
+		for(int offset : WORD_OFFSETS){
+			for(int sign : new int[]{1, -1}){
+				for(int dy=-8; dy<=8; dy++){
+					check(a, b, sign * offset, dy);
+					check(b, a, sign * offset, dy);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void overlapsMatchesPixelCheckAtRandomOffsets(){
+		Random random = new Random(2);
+		for(int n=0; n<2000; n++){
+			CollisionMask a = randomMask(random, 1 + random.nextInt(140), 1 + random.nextInt(12), random.nextDouble());
+			CollisionMask b = randomMask(random, 1 + random.nextInt(140), 1 + random.nextInt(12), random.nextDouble());
+			check(a, b, random.nextInt(301) - 150, random.nextInt(31) - 15);
+		}
+	}
+
+	@Test
+	public void noOverlapBetweenInterleavedMasks(){
+		// solid on even and odd columns: they only touch when shifted by an odd number of pixels
+		CollisionMask even = stripes(131, 4, 0);
+		CollisionMask odd = stripes(131, 4, 1);
+		for(int offset : WORD_OFFSETS){
+			for(int dx : new int[]{offset, -offset}){
+				boolean touching = (dx & 1) != 0;
+				assertEquals("dx " + dx, touching, even.overlaps(0, 0, odd, dx, 0));
+				check(even, odd, dx, 0);
+			}
+		}
+	}
+
+	@Test
+	public void noOverlapWhenApartOrEmpty(){
+		CollisionMask solid = CollisionMask.solid(100, 10);
+		assertTrue(solid.overlaps(0, 0, solid, 99, 9));
+		assertFalse(solid.overlaps(0, 0, solid, 100, 0));
+		assertFalse(solid.overlaps(0, 0, solid, -100, 0));
+		assertFalse(solid.overlaps(0, 0, solid, 0, 10));
+		assertFalse(solid.overlaps(0, 0, solid, 0, -10));
+		CollisionMask empty = randomMask(new Random(3), 100, 10, 0);
+		assertEquals(0, empty.getSolidCount());
+		assertFalse(solid.overlaps(0, 0, empty, 0, 0));
+		assertFalse(empty.overlaps(0, 0, solid, 0, 0));
+	}
+
+	/**
+	 * Checks overlaps with the second mask at the given offset against the pixel by pixel check, and
+	 * that moving both masks by the same amount changes nothing.
+	 */
+	private static void check(CollisionMask a, CollisionMask b, int dx, int dy){
+		boolean expected = overlapsByPixel(a, b, dx, dy);
+		String where = a.getWidth() + "x" + a.getHeight() + " and " + b.getWidth() + "x" + b.getHeight()
+				+ " at " + dx + "," + dy;
+		assertEquals(where, expected, a.overlaps(0, 0, b, dx, dy));
+		assertEquals(where, expected, a.overlaps(-37, 11, b, dx - 37, dy + 11));
+		assertEquals(where, expected, b.overlaps(dx, dy, a, 0, 0));
+	}
+
+	private static boolean overlapsByPixel(CollisionMask a, CollisionMask b, int dx, int dy){
+		for(int y=0; y<a.getHeight(); y++){
+			for(int x=0; x<a.getWidth(); x++){
+				if(a.isSolid(x, y) && b.isSolid(x - dx, y - dy)){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static CollisionMask randomMask(Random random, int width, int height, double solidShare){
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		for(int y=0; y<height; y++){
+			for(int x=0; x<width; x++){
+				if(random.nextDouble() < solidShare){
+					image.setRGB(x, y, 0xFFFFFFFF);
+				}
+			}
+		}
+		return CollisionMask.fromImage(image, CollisionMask.DEFAULT_ALPHA_THRESHOLD);
+	}
+
+	private static CollisionMask stripes(int width, int height, int firstColumn){
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		for(int y=0; y<height; y++){
+			for(int x=firstColumn; x<width; x+=2){
+				image.setRGB(x, y, 0xFFFFFFFF);
+			}
+		}
+		return CollisionMask.fromImage(image, CollisionMask.DEFAULT_ALPHA_THRESHOLD);
+	}
+}
@@ -0,0 +1,61 @@
+package rbadia.voidspace.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import rbadia.voidspace.main.GameStatus;
+import rbadia.voidspace.simulation.InputSnapshot;
+import rbadia.voidspace.simulation.Simulation;
+
+/**
+ * Records a short seeded session and checks that replaying it ends the same way.
+ */
+public class RecordingTest {
+	private static final long SEED = 42L;
+	private static final int ASTEROIDS = 40;
+	private static final long TICK_NANOS = Simulation.BASE_TICK_NANOS / 2;
+	private static final int TICKS = 120 * 60;
+
+	@Test
+	public void replayMatchesRecordedSession() throws IOException {
+		Simulation live = new Simulation(500, 400, SEED);
+		live.setAsteroidCount(ASTEROIDS);
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		SessionRecorder recorder = new SessionRecorder(file, live, TICK_NANOS);
+		// random controls held for a while each, with a start press now and then for new games
+		Random input = new Random(7);
+		int mask = 0;
+		for(int i=0; i<TICKS; i++){
+			if(input.nextInt(30) == 0){
+				mask = input.nextInt(InputSnapshot.START);
+			}
+			InputSnapshot controls = InputSnapshot.of(i % 2000 == 5? mask | InputSnapshot.START : mask);
+			live.step(TICK_NANOS, controls);
+			recorder.record(controls, live.getStatus().getSnapshot());
+		}
+		recorder.close();
+		GameStatus.Snapshot recorded = live.getStatus().getSnapshot();
+		assertTrue("the session should have scored", recorded.getScore() > 0);
+
+		Recording recording = Recording.read(new ByteArrayInputStream(file.toByteArray()));
+		assertTrue(recording.isComplete());
+		assertEquals(SEED, recording.getSeed());
+		assertEquals(TICK_NANOS, recording.getTickNanos());
+		assertEquals(ASTEROIDS, recording.getAsteroidCount());
+		assertEquals(TICKS, recording.getTicks());
+
+		GameStatus.Snapshot replayed = recording.play(recording.newSimulation());
+		assertEquals(recorded.getScore(), replayed.getScore());
+		assertEquals(recorded.getAsteroidsDestroyed(), replayed.getAsteroidsDestroyed());
+		assertEquals(recorded.getShipsLeft(), replayed.getShipsLeft());
+		assertEquals(recorded.isGameOver(), replayed.isGameOver());
+		assertTrue(recording.matchesFinalStatus(replayed));
+	}
+}
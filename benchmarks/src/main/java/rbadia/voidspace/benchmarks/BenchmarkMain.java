@@ -0,0 +1,26 @@
+package rbadia.voidspace.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result also reports its allocation rate.
+ * Takes the usual JMH command line options, e.g. a benchmark name pattern or -p entityCount=1000.
+ */
+public class BenchmarkMain {
+
+	/**
+	 * @param args JMH command line options
+	 * @throws Exception if the options are invalid or a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
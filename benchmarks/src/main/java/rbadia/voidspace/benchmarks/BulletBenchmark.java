@@ -0,0 +1,72 @@
+package rbadia.voidspace.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rbadia.voidspace.model.Bullet;
+import rbadia.voidspace.model.BulletPool;
+
+/**
+ * Cost of moving every bullet one step, releasing the ones that left the screen and firing
+ * new ones to keep the pool at the same size, the way the simulation moves the ship's bullets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BulletBenchmark {
+	private static final int WIDTH = 500;
+	private static final int HEIGHT = 400;
+
+	@Param({"10", "100", "1000", "10000"})
+	public int entityCount;
+
+	private BulletPool bullets;
+	private Random rand;
+
+	@Setup
+	public void setup(){
+		rand = new Random(42);
+		bullets = new BulletPool(entityCount);
+		for(int i=0; i<entityCount; i++){
+			bullets.acquire().setLocation(rand.nextInt(WIDTH), rand.nextInt(HEIGHT));
+		}
+	}
+
+	/**
+	 * Moves, releases and refills the bullets.
+	 * @return the number of bullets released
+	 */
+	@Benchmark
+	public int moveAndRelease(){
+		int released = 0;
+		for(int i=0; i<bullets.size(); i++){
+			Bullet bullet = bullets.get(i);
+			bullet.translate(0, -bullet.getSpeed());
+			if(bullet.y + bullet.height < 0){
+				// the last bullet takes this index; move it next
+				bullets.release(i);
+				i--;
+				released++;
+			}
+		}
+		while(bullets.size() < entityCount){
+			bullets.acquire().setLocation(rand.nextInt(WIDTH), HEIGHT);
+		}
+		return released;
+	}
+}
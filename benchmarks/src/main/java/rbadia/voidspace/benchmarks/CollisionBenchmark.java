@@ -0,0 +1,105 @@
+package rbadia.voidspace.benchmarks;
+
+import java.awt.Rectangle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rbadia.voidspace.model.Asteroid;
+import rbadia.voidspace.model.Bullet;
+import rbadia.voidspace.model.EntityStore;
+import rbadia.voidspace.simulation.SpatialGrid;
+
+/**
+ * Cost of finding the bullet-asteroid collision pairs of one step, with the uniform grid
+ * the simulation uses and with the pairwise test it replaced.
+ * One in ten entities is a bullet, the rest are asteroids spread over the play field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollisionBenchmark {
+	private static final int WIDTH = 500;
+	private static final int HEIGHT = 400;
+
+	@Param({"10", "100", "1000", "10000"})
+	public int entityCount;
+
+	private EntityStore asteroids;
+	private Rectangle[] bullets;
+	private SpatialGrid grid;
+	private int pairs;
+
+	private final SpatialGrid.PairCallback countPairs = new SpatialGrid.PairCallback(){
+		public void pair(int queryId, int id) {
+			pairs++;
+		}
+	};
+
+	@Setup
+	public void setup(){
+		Random rand = new Random(42);
+		int bulletCount = Math.max(1, entityCount / 10);
+		int asteroidCount = entityCount - bulletCount;
+		asteroids = new EntityStore(asteroidCount);
+		for(int i=0; i<asteroidCount; i++){
+			asteroids.add(rand.nextInt(WIDTH - Asteroid.ASTEROID_WIDTH), rand.nextInt(HEIGHT - Asteroid.ASTEROID_HEIGHT),
+					Asteroid.ASTEROID_WIDTH, Asteroid.ASTEROID_HEIGHT, Asteroid.DEFAULT_SPEED);
+		}
+		bullets = new Rectangle[bulletCount];
+		for(int i=0; i<bulletCount; i++){
+			Bullet bullet = new Bullet();
+			bullet.setLocation(rand.nextInt(WIDTH - bullet.width), rand.nextInt(HEIGHT - bullet.height));
+			bullets[i] = bullet;
+		}
+		grid = new SpatialGrid(WIDTH, HEIGHT, 64);
+	}
+
+	/**
+	 * Fills the grid with the asteroids and queries it for every bullet, as each simulation step does.
+	 * @return the number of pairs found
+	 */
+	@Benchmark
+	public int spatialGrid(){
+		grid.clear();
+		for(int i=0; i<asteroids.size(); i++){
+			grid.insert(i, asteroids.getX(i), asteroids.getY(i), asteroids.getWidth(i), asteroids.getHeight(i));
+		}
+		pairs = 0;
+		for(int i=0; i<bullets.length; i++){
+			grid.query(i, bullets[i], countPairs);
+		}
+		return pairs;
+	}
+
+	/**
+	 * Tests every bullet against every asteroid.
+	 * @return the number of pairs found
+	 */
+	@Benchmark
+	public int bruteForce(){
+		int found = 0;
+		for(int b=0; b<bullets.length; b++){
+			for(int i=0; i<asteroids.size(); i++){
+				if(asteroids.intersects(i, bullets[b])){
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+}
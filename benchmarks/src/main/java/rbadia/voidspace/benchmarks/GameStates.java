@@ -0,0 +1,60 @@
+package rbadia.voidspace.benchmarks;
+
+import rbadia.voidspace.main.GameStatus;
+import rbadia.voidspace.simulation.InputSnapshot;
+import rbadia.voidspace.simulation.Simulation;
+
+/**
+ * Puts a simulation into a game in progress, for the benchmarks that need one.
+ */
+class GameStates {
+	/**
+	 * Seed of the simulations the benchmarks measure, so every run starts from the same game.
+	 */
+	static final long SEED = 42L;
+
+	// asteroids destroyed before the whole asteroid field is in play; the level stays at the
+	// asteroids-only levels of the default table until 15 asteroids are destroyed
+	private static final int ALL_ASTEROIDS_LEVEL = 5;
+
+	private GameStates(){
+	}
+
+	/**
+	 * Starts a new game with the given number of asteroids, steps past the "Get Ready" message and
+	 * then until the wave spawner has brought in the whole asteroid field.
+	 * @param simulation the simulation
+	 * @param asteroidCount the number of asteroids
+	 */
+	static void startGame(Simulation simulation, int asteroidCount){
+		simulation.setAsteroidCount(asteroidCount);
+		simulation.newGame();
+		while(!simulation.getStatus().isGameStarted()){
+			simulation.step(Simulation.BASE_TICK_NANOS, InputSnapshot.NONE);
+		}
+		simulation.getStatus().setAsteroidsDestroyed(ALL_ASTEROIDS_LEVEL);
+		while(simulation.getAsteroids().size() < asteroidCount){
+			simulation.step(Simulation.BASE_TICK_NANOS, InputSnapshot.NONE);
+			keepPlaying(simulation);
+		}
+	}
+
+	/**
+	 * Keeps the game in the state it was started in: gives the ship back its lives, so that the game
+	 * never ends, undoes the asteroids destroyed, so that it never reaches the levels with zigzags
+	 * and enemy ships, and keeps the asteroids moving after the ship crashes into one. In a large
+	 * field the ship crashes again as soon as it is back, which would otherwise keep the asteroids
+	 * paused, and the field one short, for good.
+	 * @param simulation the simulation
+	 */
+	static void keepPlaying(Simulation simulation){
+		GameStatus status = simulation.getStatus();
+		if(status.getShipsLeft() < 3){
+			status.setShipsLeft(3);
+		}
+		if(status.getAsteroidsDestroyed() != ALL_ASTEROIDS_LEVEL){
+			status.setAsteroidsDestroyed(ALL_ASTEROIDS_LEVEL);
+		}
+		status.setNewAsteroid(false);
+	}
+}
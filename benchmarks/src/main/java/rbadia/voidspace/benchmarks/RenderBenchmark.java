@@ -0,0 +1,107 @@
+package rbadia.voidspace.benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rbadia.voidspace.graphics.GraphicsManager;
+import rbadia.voidspace.graphics.Starfield;
+import rbadia.voidspace.main.GameLogic;
+import rbadia.voidspace.main.GameScreen;
+import rbadia.voidspace.main.HudPanel;
+import rbadia.voidspace.model.Asteroid;
+import rbadia.voidspace.model.EntityStore;
+import rbadia.voidspace.sounds.SoundManager;
+
+/**
+ * Cost of drawing a frame into an offscreen back buffer, without a display.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+	private static final int WIDTH = 500;
+	private static final int HEIGHT = 400;
+
+	@Param({"10", "100", "1000", "10000"})
+	public int entityCount;
+
+	private BufferedImage backBuffer;
+	private Graphics2D g2d;
+	private GraphicsManager graphicsMan;
+	private Starfield starfield;
+	private EntityStore asteroids;
+	private Asteroid asteroidView;
+	private GameScreen gameScreen;
+	private long time;
+
+	@Setup
+	public void setup(){
+		backBuffer = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		g2d = backBuffer.createGraphics();
+		graphicsMan = new GraphicsManager();
+		starfield = new Starfield(WIDTH, HEIGHT, Starfield.DEFAULT_STAR_COUNT, 0L);
+
+		Random rand = new Random(42);
+		asteroids = new EntityStore(entityCount);
+		for(int i=0; i<entityCount; i++){
+			asteroids.add(rand.nextInt(WIDTH), rand.nextInt(HEIGHT),
+					Asteroid.ASTEROID_WIDTH, Asteroid.ASTEROID_HEIGHT, Asteroid.DEFAULT_SPEED);
+		}
+		asteroidView = new Asteroid(asteroids);
+
+		// a whole game screen showing a game in progress with the same number of asteroids
+		gameScreen = new GameScreen();
+		gameScreen.setHud(new HudPanel());
+		GameLogic gameLogic = new GameLogic(gameScreen, GameStates.SEED, SoundManager.silent());
+		gameScreen.setGameLogic(gameLogic);
+		GameStates.startGame(gameLogic.getSimulation(), entityCount);
+	}
+
+	@TearDown
+	public void tearDown(){
+		g2d.dispose();
+	}
+
+	/**
+	 * Draws the star background and the asteroids, the sprites that grow with the entity count.
+	 * @return the back buffer
+	 */
+	@Benchmark
+	public BufferedImage drawAsteroids(){
+		time += 16666667L;
+		starfield.draw(time, g2d, null);
+		for(int i=0; i<asteroids.size(); i++){
+			Asteroid asteroid = asteroidView.at(i);
+			graphicsMan.drawAsteroid(asteroid, asteroid.x, asteroid.y, g2d, null);
+		}
+		return backBuffer;
+	}
+
+	/**
+	 * Draws a whole frame of the game screen, including its labels.
+	 * @return the game screen
+	 */
+	@Benchmark
+	public GameScreen drawScreen(){
+		gameScreen.drawScreen(0.5f);
+		return gameScreen;
+	}
+}
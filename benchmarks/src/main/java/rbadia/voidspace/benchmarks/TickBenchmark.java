@@ -0,0 +1,61 @@
+package rbadia.voidspace.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rbadia.voidspace.simulation.InputSnapshot;
+import rbadia.voidspace.simulation.Simulation;
+
+/**
+ * Cost of one whole simulation step: movement, collisions and input, with the ship
+ * firing and moving back and forth across the asteroid field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TickBenchmark {
+	private static final InputSnapshot FIRE_LEFT = new InputSnapshot(true, false, false, false, true, false);
+	private static final InputSnapshot FIRE_RIGHT = new InputSnapshot(false, true, false, false, true, false);
+
+	@Param({"10", "100", "1000", "10000"})
+	public int entityCount;
+
+	private Simulation simulation;
+	private int step;
+
+	/**
+	 * Starts the same game for every iteration, so that each measures the same level and field.
+	 */
+	@Setup(Level.Iteration)
+	public void setup(){
+		simulation = new Simulation(500, 400, GameStates.SEED);
+		GameStates.startGame(simulation, entityCount);
+		step = 0;
+	}
+
+	/**
+	 * Runs one simulation step.
+	 * @return the simulation
+	 */
+	@Benchmark
+	public Simulation tick(){
+		GameStates.keepPlaying(simulation);
+		simulation.step(Simulation.BASE_TICK_NANOS, (step++ / 120) % 2 == 0? FIRE_LEFT : FIRE_RIGHT);
+		return simulation;
+	}
+}